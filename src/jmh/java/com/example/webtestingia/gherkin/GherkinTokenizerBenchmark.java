@@ -0,0 +1,102 @@
+package com.example.webtestingia.gherkin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compara el análisis previo basado en expresiones regulares y varias pasadas sobre el texto con el
+ * tokenizador de una sola pasada, sobre archivos .feature grandes generados.
+ * Ejecutar con {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GherkinTokenizerBenchmark {
+
+    private static final Pattern ESCENARIO_PATTERN = Pattern.compile("Scenario(?: Outline)?:\\s*(.+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TAG_PATTERN = Pattern.compile("^@(.+)$");
+
+    @Param({"50", "2000"})
+    public int escenarios;
+
+    private String contenido;
+
+    @Setup
+    public void generar() {
+        StringBuilder sb = new StringBuilder("@regression @web\nFeature: Generated feature\n\n");
+        for (int i = 0; i < escenarios; i++) {
+            sb.append("  @smoke @case-").append(i).append('\n');
+            sb.append(i % 2 == 0 ? "  Scenario: user performs flow number " : "  Scenario Outline: data driven flow ")
+                    .append(i).append('\n');
+            sb.append("    Given navego a \"https://app/").append(i).append("\"\n");
+            sb.append("    When hago clic en \"btn_ingresar\"\n");
+            sb.append("    And escribo \"<user>\" en \"css=#username\"\n");
+            sb.append("    Then debería ver el texto \"Bienvenido\"\n");
+            if (i % 2 != 0) {
+                sb.append("    Examples:\n      | user |\n      | ana  |\n      | luis |\n");
+            }
+            sb.append('\n');
+        }
+        contenido = sb.toString();
+    }
+
+    /**
+     * Reproduce el recorrido previo: regex de escenarios, split + regex por línea para tags y
+     * minúsculas y streams de líneas por cada regla de calidad.
+     */
+    @Benchmark
+    public void multiplesPasadas(Blackhole bh) {
+        List<String> nombres = new ArrayList<>();
+        Matcher matcher = ESCENARIO_PATTERN.matcher(contenido);
+        while (matcher.find()) {
+            nombres.add(matcher.group(1).trim());
+        }
+        List<String> tags = new ArrayList<>();
+        for (String linea : contenido.split("\\r?\\n")) {
+            Matcher tagMatcher = TAG_PATTERN.matcher(linea.trim());
+            if (tagMatcher.find()) {
+                Collections.addAll(tags, tagMatcher.group(1).split("\\s+"));
+            }
+        }
+        for (int regla = 0; regla < 5; regla++) {
+            String lower = contenido.toLowerCase();
+            bh.consume(lower.contains("then"));
+            bh.consume(contenido.lines().findFirst().orElse("").length() > 15);
+            bh.consume(contenido.lines().filter(l -> l.strip().matches("^(given|when|then|and|but).*$")).count());
+        }
+        bh.consume(nombres);
+        bh.consume(tags);
+    }
+
+    /**
+     * Una sola pasada del tokenizador y consultas sobre el modelo resultante.
+     */
+    @Benchmark
+    public void unaPasada(Blackhole bh) {
+        GherkinDocument documento = GherkinTokenizer.parse(contenido);
+        bh.consume(documento.nombresEscenarios());
+        bh.consume(documento.tags());
+        bh.consume(documento.keywordsPresentes());
+        bh.consume(documento.totalPasos());
+    }
+}
@@ -5,6 +5,7 @@ import com.example.webtestingia.model.exception.BrowserException;
 import com.example.webtestingia.model.exception.FileAccessException;
 import com.example.webtestingia.model.exception.InvalidConfigurationException;
 import com.example.webtestingia.model.exception.ParsingException;
+import com.example.webtestingia.model.exception.PreconditionFailedException;
 import com.example.webtestingia.model.exception.ProjectNotFoundException;
 import com.example.webtestingia.model.exception.SessionException;
 import org.slf4j.Logger;
@@ -60,6 +61,14 @@ public class RestExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex);
     }
 
+    /**
+     * Maneja conflictos de concurrencia optimista detectados con If-Match.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePrecondition(PreconditionFailedException ex) {
+        return buildResponse(HttpStatus.PRECONDITION_FAILED, ex);
+    }
+
     /**
      * Maneja errores de sesión del grabador.
      */
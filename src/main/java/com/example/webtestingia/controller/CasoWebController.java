@@ -1,23 +1,37 @@
 package com.example.webtestingia.controller;
 
+import com.example.webtestingia.gherkin.TagExpression;
 import com.example.webtestingia.model.ApiResponse;
+import com.example.webtestingia.model.CaseEdit;
+import com.example.webtestingia.model.CaseOperation;
+import com.example.webtestingia.model.FieldSelection;
 import com.example.webtestingia.model.TestCaseDetail;
 import com.example.webtestingia.model.TestCaseSummary;
 import com.example.webtestingia.service.CaseFileService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Controlador para operaciones sobre casos de prueba web almacenados en archivos .feature.
@@ -27,33 +41,78 @@ import java.util.Map;
 public class CasoWebController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CasoWebController.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int LIMITE_POR_DEFECTO = 100;
     private final CaseFileService caseFileService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructor con dependencias.
      *
      * @param caseFileService servicio de casos.
+     * @param objectMapper    serializador JSON de la aplicación, usado en el listado NDJSON.
      */
-    public CasoWebController(CaseFileService caseFileService) {
+    public CasoWebController(CaseFileService caseFileService, ObjectMapper objectMapper) {
         this.caseFileService = caseFileService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Lista los casos de un proyecto.
+     * Lista los casos de un proyecto. Sin {@code limit} ni {@code cursor} devuelve la lista completa;
+     * con cualquiera de ellos devuelve una página {@code { items, nextCursor }}. {@code fields} limita los
+     * campos de cada resumen; si no incluye {@code calidad} no se analiza ningún archivo. {@code tags} filtra
+     * por una expresión como {@code @smoke and not @slow} sobre todos los tags de cada archivo.
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listar(@PathVariable("project") String proyecto) {
+    public ResponseEntity<Map<String, Object>> listar(@PathVariable("project") String proyecto,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) String fields,
+                                                      @RequestParam(required = false) String tags) {
         LOGGER.info("Listing cases for {}", proyecto);
-        return ApiResponse.ok(caseFileService.listarCasos(proyecto));
+        FieldSelection campos = campos(fields);
+        TagExpression filtro = filtro(tags);
+        if (limit == null && cursor == null) {
+            return ApiResponse.ok(caseFileService.listarCasos(proyecto, campos, filtro));
+        }
+        return ApiResponse.ok(caseFileService.listarPagina(proyecto, cursor, limit == null ? LIMITE_POR_DEFECTO : limit, campos, filtro));
     }
 
     /**
-     * Devuelve el contenido y análisis de un caso.
+     * Lista los casos como NDJSON (un resumen por línea), escribiendo cada uno a medida que se produce.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> listarStream(@PathVariable("project") String proyecto,
+                                                              @RequestParam(required = false) String fields,
+                                                              @RequestParam(required = false) String tags) {
+        LOGGER.info("Streaming cases for {}", proyecto);
+        Stream<TestCaseSummary> casos = caseFileService.recorrerCasos(proyecto, campos(fields), filtro(tags));
+        StreamingResponseBody body = out -> {
+            try (casos) {
+                Iterator<TestCaseSummary> iterador = casos.iterator();
+                while (iterador.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterador.next()));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Devuelve el contenido y análisis de un caso. Si If-None-Match coincide con el ETag actual responde
+     * 304 sin leer el archivo ni analizarlo.
      */
     @GetMapping("/{ruta:.+}")
-    public ResponseEntity<Map<String, Object>> obtener(@PathVariable("project") String proyecto, @PathVariable String ruta) {
+    public ResponseEntity<Map<String, Object>> obtener(@PathVariable("project") String proyecto, @PathVariable String ruta,
+                                                       WebRequest request) {
+        String etag = caseFileService.etagCaso(proyecto, ruta);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         LOGGER.info("Reading case {} in {}", ruta, proyecto);
-        return ApiResponse.ok(caseFileService.leerCaso(proyecto, ruta));
+        return ApiResponse.ok(caseFileService.leerCaso(proyecto, ruta), etag);
     }
 
     /**
@@ -69,14 +128,40 @@ public class CasoWebController {
     }
 
     /**
-     * Actualiza un caso existente.
+     * Aplica un lote de operaciones {@code crear}, {@code actualizar} y {@code eliminar}. Si alguna operación
+     * es inválida responde 400 sin aplicar ninguna; si no, devuelve el resultado de cada una.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> lote(@PathVariable("project") String proyecto, @RequestBody List<CaseOperation> operaciones) {
+        LOGGER.info("Applying batch of {} operations in {}", operaciones.size(), proyecto);
+        return ApiResponse.ok(caseFileService.ejecutarLote(proyecto, operaciones));
+    }
+
+    /**
+     * Actualiza un caso existente. Con If-Match sólo escribe si el caso no cambió desde que se leyó
+     * (412 en caso contrario); la respuesta incluye el nuevo ETag.
      */
     @PutMapping("/{ruta:.+}")
-    public ResponseEntity<Map<String, Object>> actualizar(@PathVariable("project") String proyecto, @PathVariable String ruta, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, Object>> actualizar(@PathVariable("project") String proyecto, @PathVariable String ruta,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestBody Map<String, String> payload) {
         String contenido = payload.get("contenido");
         LOGGER.info("Updating case {} in {}", ruta, proyecto);
-        caseFileService.actualizarCaso(proyecto, ruta, contenido);
-        return ApiResponse.ok(Map.of("message", "Case updated"));
+        String etag = caseFileService.actualizarCaso(proyecto, ruta, contenido, ifMatch);
+        return ApiResponse.ok(Map.of("message", "Case updated"), etag);
+    }
+
+    /**
+     * Aplica ediciones parciales (rangos de líneas o escenarios) a un caso existente sin reenviar el archivo
+     * completo. Admite If-Match igual que la actualización completa y devuelve el nuevo ETag.
+     */
+    @PatchMapping("/{ruta:.+}")
+    public ResponseEntity<Map<String, Object>> editar(@PathVariable("project") String proyecto, @PathVariable String ruta,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @RequestBody List<CaseEdit> ediciones) {
+        LOGGER.info("Patching case {} in {}", ruta, proyecto);
+        String etag = caseFileService.editarCaso(proyecto, ruta, ediciones, ifMatch);
+        return ApiResponse.ok(Map.of("message", "Case patched"), etag);
     }
 
     /**
@@ -88,4 +173,12 @@ public class CasoWebController {
         caseFileService.eliminarCaso(proyecto, ruta);
         return ApiResponse.ok(Map.of("message", "Case deleted"));
     }
+
+    private FieldSelection campos(String fields) {
+        return FieldSelection.de(fields, TestCaseSummary.CAMPOS, TestCaseSummary.CAMPOS_POR_DEFECTO);
+    }
+
+    private TagExpression filtro(String tags) {
+        return tags == null || tags.isBlank() ? null : TagExpression.parse(tags);
+    }
 }
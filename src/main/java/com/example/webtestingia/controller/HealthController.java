@@ -0,0 +1,43 @@
+package com.example.webtestingia.controller;
+
+import com.example.webtestingia.model.ApiResponse;
+import com.example.webtestingia.model.WarmupStatus;
+import com.example.webtestingia.service.WarmupService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Expone el estado de disponibilidad de la instancia para el balanceador de carga.
+ */
+@RestController
+@RequestMapping("/api/health")
+public class HealthController {
+
+    private final WarmupService warmupService;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param warmupService precalentamiento de arranque.
+     */
+    public HealthController(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    /**
+     * Responde 200 cuando la instancia terminó de precalentar y 503 mientras tanto; el cuerpo incluye el progreso.
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        WarmupStatus estado = warmupService.estado();
+        if (!estado.listo()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("data", estado));
+        }
+        return ApiResponse.ok(estado);
+    }
+}
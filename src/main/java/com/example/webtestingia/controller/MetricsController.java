@@ -0,0 +1,67 @@
+package com.example.webtestingia.controller;
+
+import com.example.webtestingia.model.ApiResponse;
+import com.example.webtestingia.quality.QualityAnalyzer;
+import com.example.webtestingia.quality.QualityPipeline;
+import com.example.webtestingia.service.CaseSearchService;
+import com.example.webtestingia.service.ChangeFeedService;
+import com.example.webtestingia.service.QualityHistoryService;
+import com.example.webtestingia.service.RequestCoalescer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Expone contadores internos de cachés y optimizaciones del backend.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final QualityAnalyzer qualityAnalyzer;
+    private final CaseSearchService caseSearchService;
+    private final RequestCoalescer requestCoalescer;
+    private final ChangeFeedService changeFeedService;
+    private final QualityPipeline qualityPipeline;
+    private final QualityHistoryService qualityHistoryService;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param qualityAnalyzer   analizador de calidad con su caché de resultados.
+     * @param caseSearchService índice de búsqueda global.
+     * @param requestCoalescer  coalescencia de lecturas concurrentes.
+     * @param changeFeedService registro de cambios por proyecto.
+     * @param qualityPipeline   análisis de calidad diferido de las escrituras.
+     * @param qualityHistoryService historial de calidad por proyecto.
+     */
+    public MetricsController(QualityAnalyzer qualityAnalyzer, CaseSearchService caseSearchService,
+                             RequestCoalescer requestCoalescer, ChangeFeedService changeFeedService,
+                             QualityPipeline qualityPipeline, QualityHistoryService qualityHistoryService) {
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.caseSearchService = caseSearchService;
+        this.requestCoalescer = requestCoalescer;
+        this.changeFeedService = changeFeedService;
+        this.qualityPipeline = qualityPipeline;
+        this.qualityHistoryService = qualityHistoryService;
+    }
+
+    /**
+     * Devuelve las métricas disponibles.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("qualityCache", qualityAnalyzer.estadisticasCache());
+        metricas.put("searchIndex", caseSearchService.estadisticas());
+        metricas.put("coalescing", requestCoalescer.estadisticas());
+        metricas.put("changeFeed", changeFeedService.estadisticas());
+        metricas.put("qualityPipeline", qualityPipeline.estadisticas());
+        metricas.put("qualityHistory", qualityHistoryService.estadisticas());
+        return ApiResponse.ok(metricas);
+    }
+}
@@ -1,17 +1,34 @@
 package com.example.webtestingia.controller;
 
 import com.example.webtestingia.model.ApiResponse;
+import com.example.webtestingia.model.FieldSelection;
 import com.example.webtestingia.model.ProjectMetadata;
+import com.example.webtestingia.service.ChangeFeedService;
+import com.example.webtestingia.service.ProjectArchiveService;
 import com.example.webtestingia.service.ProjectDiscoveryService;
+import com.example.webtestingia.service.QualityAuditService;
+import com.example.webtestingia.service.QualityHistoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.file.Path;
 
 import java.util.List;
 import java.util.Map;
@@ -24,38 +41,64 @@ import java.util.Map;
 public class ProyectoController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProyectoController.class);
+    private static final String ZIP = "application/zip";
     private final ProjectDiscoveryService discoveryService;
+    private final ProjectArchiveService archiveService;
+    private final ChangeFeedService changeFeedService;
+    private final QualityAuditService qualityAuditService;
+    private final QualityHistoryService qualityHistoryService;
 
     /**
      * Constructor con dependencias.
      *
-     * @param discoveryService servicio de descubrimiento.
+     * @param discoveryService    servicio de descubrimiento.
+     * @param archiveService      servicio de exportación e importación de proyectos en ZIP.
+     * @param changeFeedService   registro de cambios por proyecto para sincronización incremental.
+     * @param qualityAuditService auditorías de calidad en segundo plano.
+     * @param qualityHistoryService historial de calidad por proyecto.
      */
-    public ProyectoController(ProjectDiscoveryService discoveryService) {
+    public ProyectoController(ProjectDiscoveryService discoveryService, ProjectArchiveService archiveService,
+                              ChangeFeedService changeFeedService, QualityAuditService qualityAuditService,
+                              QualityHistoryService qualityHistoryService) {
         this.discoveryService = discoveryService;
+        this.archiveService = archiveService;
+        this.changeFeedService = changeFeedService;
+        this.qualityAuditService = qualityAuditService;
+        this.qualityHistoryService = qualityHistoryService;
     }
 
     /**
      * Lista todos los proyectos disponibles.
      *
+     * @param fields campos a incluir separados por coma; por defecto todos.
      * @return lista de metadatos.
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listar() {
+    public ResponseEntity<Map<String, Object>> listar(@RequestParam(required = false) String fields) {
         LOGGER.info("Listing projects");
-        return ApiResponse.ok(discoveryService.listarProyectos());
+        return ApiResponse.ok(discoveryService.listarProyectos(
+                FieldSelection.de(fields, ProjectMetadata.CAMPOS, ProjectMetadata.CAMPOS)));
     }
 
     /**
      * Obtiene el detalle de un proyecto específico incluyendo calidad.
      *
      * @param proyecto nombre del proyecto.
+     * @param fields   campos a incluir separados por coma; sin {@code averageQuality} ni {@code quality} no se consultan los agregados de calidad.
+     * @param request  petición, usada para responder 304 si If-None-Match coincide con el ETag actual.
      * @return metadata completa.
      */
     @GetMapping("/{project}")
-    public ResponseEntity<Map<String, Object>> obtener(@PathVariable("project") String proyecto) {
+    public ResponseEntity<Map<String, Object>> obtener(@PathVariable("project") String proyecto,
+                                                       @RequestParam(required = false) String fields,
+                                                       WebRequest request) {
+        FieldSelection campos = FieldSelection.de(fields, ProjectMetadata.CAMPOS, ProjectMetadata.CAMPOS);
+        String etag = discoveryService.etagProyecto(proyecto, campos);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         LOGGER.info("Loading project {}", proyecto);
-        return ApiResponse.ok(discoveryService.obtenerProyecto(proyecto));
+        return ApiResponse.ok(discoveryService.obtenerProyecto(proyecto, campos), etag);
     }
 
     /**
@@ -70,4 +113,125 @@ public class ProyectoController {
         LOGGER.info("Updating project.json for {}", proyecto);
         return ApiResponse.ok(discoveryService.actualizarProyecto(proyecto, metadata));
     }
+
+    /**
+     * Exporta los .feature y el project.json de un proyecto como ZIP, escrito directamente desde disco.
+     *
+     * @param proyecto nombre del proyecto.
+     * @return ZIP en streaming.
+     */
+    @GetMapping(value = "/{project}/export", produces = ZIP)
+    public ResponseEntity<StreamingResponseBody> exportar(@PathVariable("project") String proyecto) {
+        LOGGER.info("Exporting project {}", proyecto);
+        List<Path> archivos = archiveService.listarArchivos(proyecto);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(proyecto + ".zip").build().toString())
+                .contentType(MediaType.parseMediaType(ZIP))
+                .body(salida -> archiveService.exportar(proyecto, archivos, salida));
+    }
+
+    /**
+     * Importa un ZIP con .feature y project.json en un proyecto, creándolo si no existe.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param cuerpo   ZIP recibido, leído en streaming.
+     * @return archivos creados, actualizados y omitidos.
+     */
+    @PostMapping(value = "/{project}/import", consumes = {ZIP, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> importar(@PathVariable("project") String proyecto, InputStream cuerpo) {
+        LOGGER.info("Importing project {}", proyecto);
+        return ApiResponse.ok(archiveService.importar(proyecto, cuerpo));
+    }
+
+    /**
+     * Inicia una auditoría de calidad de todos los casos del proyecto en segundo plano. El progreso y el
+     * resultado se consultan en {@code /api/quality/jobs/{id}}.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param worst    cantidad de casos de menor puntaje a informar.
+     * @return 202 con el estado inicial del trabajo.
+     */
+    @PostMapping("/{project}/quality/analyze")
+    public ResponseEntity<Map<String, Object>> auditarCalidad(@PathVariable("project") String proyecto,
+                                                              @RequestParam(defaultValue = "20") int worst) {
+        LOGGER.info("Starting quality audit of {}", proyecto);
+        return ResponseEntity.accepted().body(Map.of("data", qualityAuditService.iniciar(proyecto, worst)));
+    }
+
+    /**
+     * Devuelve los puntos del historial de calidad de un caso en un rango de tiempo.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param path     ruta relativa del caso.
+     * @param from     inicio del rango en milisegundos desde epoch; por defecto el principio.
+     * @param to       fin del rango, inclusive; por defecto el momento actual.
+     * @param limit    máximo de puntos a devolver.
+     * @return tiempos, puntajes y reglas falladas en columnas.
+     */
+    @GetMapping("/{project}/quality/history")
+    public ResponseEntity<Map<String, Object>> historialCalidad(@PathVariable("project") String proyecto,
+                                                                @RequestParam String path,
+                                                                @RequestParam(required = false) Long from,
+                                                                @RequestParam(required = false) Long to,
+                                                                @RequestParam(defaultValue = "100000") int limit) {
+        return ApiResponse.ok(qualityHistoryService.historial(proyecto, path, from, to, limit));
+    }
+
+    /**
+     * Devuelve la evolución de la calidad del proyecto en tramos de igual duración.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param from     inicio del rango en milisegundos desde epoch; por defecto el primer registro.
+     * @param to       fin del rango, inclusive; por defecto el momento actual.
+     * @param buckets  cantidad de tramos.
+     * @return promedio, casos y fallos por regla al final de cada tramo.
+     */
+    @GetMapping("/{project}/quality/trend")
+    public ResponseEntity<Map<String, Object>> tendenciaCalidad(@PathVariable("project") String proyecto,
+                                                                @RequestParam(required = false) Long from,
+                                                                @RequestParam(required = false) Long to,
+                                                                @RequestParam(defaultValue = "100") int buckets) {
+        return ApiResponse.ok(qualityHistoryService.tendencia(proyecto, from, to, buckets));
+    }
+
+    /**
+     * Devuelve los cambios de casos del proyecto posteriores a una secuencia, para sincronizar sin volver a
+     * listar el proyecto completo.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param since    última secuencia conocida; 0 para empezar desde el primer cambio conservado.
+     * @param limit    máximo de cambios a devolver.
+     * @return cambios y secuencia desde la que continuar, o {@code reinicio} si hay que volver a listar.
+     */
+    @GetMapping("/{project}/changes")
+    public ResponseEntity<Map<String, Object>> cambios(@PathVariable("project") String proyecto,
+                                                       @RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(defaultValue = "1000") int limit) {
+        return ApiResponse.ok(changeFeedService.cambiosDesde(proyecto, since, limit));
+    }
+
+    /**
+     * Variante SSE de {@link #cambios}: se elige con {@code Accept: text/event-stream} y mantiene la conexión
+     * abierta enviando cada cambio nuevo. Al reconectar, {@code Last-Event-ID} se usa si no se indica {@code since}.
+     *
+     * @param proyecto    nombre del proyecto.
+     * @param since       última secuencia conocida.
+     * @param ultimoEvento cabecera {@code Last-Event-ID} enviada por el navegador al reconectar.
+     * @return emisor de eventos {@code change} y {@code reset}.
+     */
+    @GetMapping(value = "/{project}/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirCambios(@PathVariable("project") String proyecto,
+                                       @RequestParam(required = false) Long since,
+                                       @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEvento) {
+        long desde = since != null ? since : 0;
+        if (since == null && ultimoEvento != null && !ultimoEvento.isBlank()) {
+            try {
+                desde = Long.parseLong(ultimoEvento.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Last-Event-ID inválido: " + ultimoEvento);
+            }
+        }
+        LOGGER.info("Subscribing to changes of {} since {}", proyecto, desde);
+        return changeFeedService.suscribir(proyecto, desde);
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.webtestingia.controller;
+
+import com.example.webtestingia.model.ApiResponse;
+import com.example.webtestingia.service.QualityAuditService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controlador REST para auditorías de calidad sobre todos los proyectos y para seguir sus trabajos.
+ */
+@RestController
+@RequestMapping("/api/quality")
+public class QualityAuditController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QualityAuditController.class);
+    private final QualityAuditService qualityAuditService;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param qualityAuditService auditorías de calidad en segundo plano.
+     */
+    public QualityAuditController(QualityAuditService qualityAuditService) {
+        this.qualityAuditService = qualityAuditService;
+    }
+
+    /**
+     * Inicia una auditoría de calidad de todos los proyectos en segundo plano.
+     *
+     * @param worst cantidad de casos de menor puntaje a informar.
+     * @return 202 con el estado inicial del trabajo.
+     */
+    @PostMapping("/analyze")
+    public ResponseEntity<Map<String, Object>> auditar(@RequestParam(defaultValue = "20") int worst) {
+        LOGGER.info("Starting quality audit of all projects");
+        return ResponseEntity.accepted().body(Map.of("data", qualityAuditService.iniciar(null, worst)));
+    }
+
+    /**
+     * Lista los trabajos de auditoría conservados, sin sus resultados.
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> listar() {
+        return ApiResponse.ok(qualityAuditService.listar());
+    }
+
+    /**
+     * Devuelve el progreso de un trabajo y, cuando termina, su resultado.
+     *
+     * @param id identificador del trabajo.
+     * @return estado del trabajo.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> obtener(@PathVariable String id) {
+        return ApiResponse.ok(qualityAuditService.estado(id));
+    }
+
+    /**
+     * Cancela un trabajo en curso; su resultado parcial queda disponible.
+     *
+     * @param id identificador del trabajo.
+     * @return estado del trabajo tras la solicitud.
+     */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> cancelar(@PathVariable String id) {
+        LOGGER.info("Cancelling quality audit {}", id);
+        return ApiResponse.ok(qualityAuditService.cancelar(id));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.webtestingia.controller;
+
+import com.example.webtestingia.model.ApiResponse;
+import com.example.webtestingia.service.CaseSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controlador de búsqueda global de escenarios en todos los proyectos.
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchController.class);
+    private static final int LIMITE_POR_DEFECTO = 100;
+    private final CaseSearchService caseSearchService;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param caseSearchService servicio de búsqueda.
+     */
+    public SearchController(CaseSearchService caseSearchService) {
+        this.caseSearchService = caseSearchService;
+    }
+
+    /**
+     * Busca escenarios por texto y/o expresión de tags.
+     *
+     * @param q       términos a buscar; {@code login*} busca por prefijo.
+     * @param tags    expresión de tags, por ejemplo {@code @smoke and not @slow}.
+     * @param project proyecto al que limitar la búsqueda.
+     * @param field   campos donde buscar los términos: escenario, paso, tag, locator.
+     * @param limit   cantidad máxima de resultados.
+     * @return total y escenarios encontrados.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> buscar(@RequestParam(required = false) String q,
+                                                      @RequestParam(required = false) String tags,
+                                                      @RequestParam(required = false) String project,
+                                                      @RequestParam(required = false) String field,
+                                                      @RequestParam(required = false) Integer limit) {
+        LOGGER.info("Searching cases q={} tags={} project={}", q, tags, project);
+        return ApiResponse.ok(caseSearchService.buscar(q, tags, project, field, limit == null ? LIMITE_POR_DEFECTO : limit));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.webtestingia.gherkin;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modelo compacto de un archivo .feature producido por {@link GherkinTokenizer}.
+ *
+ * @param feature      nombre de la Feature, vacío si no se declaró.
+ * @param featureTags  tags declarados antes de la Feature.
+ * @param background   bloque Background, o null si no existe.
+ * @param escenarios   escenarios y esquemas en orden de aparición.
+ * @param tags         todos los tags del archivo en orden de aparición.
+ * @param primeraLinea primera línea del contenido tal como aparece.
+ * @param lineas       cantidad total de líneas.
+ */
+public record GherkinDocument(String feature,
+                              List<String> featureTags,
+                              GherkinScenario background,
+                              List<GherkinScenario> escenarios,
+                              List<String> tags,
+                              String primeraLinea,
+                              int lineas) {
+
+    /**
+     * Nombres de los escenarios en orden de aparición.
+     *
+     * @return lista de nombres.
+     */
+    public List<String> nombresEscenarios() {
+        return escenarios.stream().map(GherkinScenario::nombre).toList();
+    }
+
+    /**
+     * Nombre del primer escenario, o cadena vacía si el documento no tiene escenarios.
+     *
+     * @return nombre del primer escenario.
+     */
+    public String primerEscenario() {
+        return escenarios.isEmpty() ? "" : escenarios.get(0).nombre();
+    }
+
+    /**
+     * Tags de cabecera: los de la Feature seguidos de los del primer escenario, sin repetir.
+     * Sólo dependen del texto anterior al primer escenario, por lo que coinciden con los de
+     * {@link GherkinTokenizer#parseCabecera}.
+     *
+     * @return tags de cabecera en orden de aparición.
+     */
+    public List<String> tagsCabecera() {
+        Set<String> cabecera = new LinkedHashSet<>(featureTags);
+        if (!escenarios.isEmpty()) {
+            cabecera.addAll(escenarios.get(0).tags());
+        }
+        return List.copyOf(cabecera);
+    }
+
+    /**
+     * Vista del documento con la misma Feature y Background y un único escenario, para evaluarlo por separado.
+     * Comparte las listas de pasos, por lo que no copia el contenido.
+     *
+     * @param escenario escenario del documento.
+     * @return documento con sólo ese escenario; sus tags son los de la Feature, el Background y el escenario.
+     */
+    public GherkinDocument soloEscenario(GherkinScenario escenario) {
+        List<String> tagsVista = new ArrayList<>(featureTags);
+        if (background != null) {
+            tagsVista.addAll(background.tags());
+        }
+        tagsVista.addAll(escenario.tags());
+        return new GherkinDocument(feature, featureTags, background, List.of(escenario), tagsVista, primeraLinea, lineas);
+    }
+
+    /**
+     * Cantidad total de pasos del documento, incluyendo el Background.
+     *
+     * @return número de pasos.
+     */
+    public int totalPasos() {
+        int total = background == null ? 0 : background.pasos().size();
+        for (GherkinScenario escenario : escenarios) {
+            total += escenario.pasos().size();
+        }
+        return total;
+    }
+
+    /**
+     * Tipos de paso presentes en el Background y los escenarios: el tipo efectivo de cada paso (un And o But
+     * tras un Then cuenta como Then) más la palabra clave literal de las conjunciones, de modo que también
+     * pueden buscarse And, But y {@code *} tal como se escribieron.
+     *
+     * @return conjunto de tipos y conjunciones presentes.
+     */
+    public Set<StepKeyword> tiposPresentes() {
+        Set<StepKeyword> presentes = EnumSet.noneOf(StepKeyword.class);
+        List<GherkinScenario> bloques = new ArrayList<>(escenarios);
+        if (background != null) {
+            bloques.add(background);
+        }
+        for (GherkinScenario bloque : bloques) {
+            for (GherkinStep paso : bloque.pasos()) {
+                presentes.add(paso.tipoEfectivo());
+                presentes.add(paso.keyword());
+            }
+        }
+        return presentes;
+    }
+}
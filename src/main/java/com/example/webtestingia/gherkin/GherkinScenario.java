@@ -0,0 +1,25 @@
+package com.example.webtestingia.gherkin;
+
+import java.util.List;
+
+/**
+ * Escenario, esquema de escenario o Background dentro de un documento Gherkin.
+ *
+ * @param nombre        nombre declarado después de la palabra clave.
+ * @param outline       true si es un Scenario Outline / Template.
+ * @param background    true si es el bloque Background.
+ * @param tags          tags declarados justo antes del escenario.
+ * @param pasos         pasos en orden de aparición.
+ * @param filasEjemplos cantidad de filas de datos en sus bloques Examples (sin encabezados).
+ * @param linea         línea de la palabra clave (base 1).
+ * @param lineaFin      última línea que pertenece al escenario (base 1).
+ */
+public record GherkinScenario(String nombre,
+                              boolean outline,
+                              boolean background,
+                              List<String> tags,
+                              List<GherkinStep> pasos,
+                              int filasEjemplos,
+                              int linea,
+                              int lineaFin) {
+}
@@ -0,0 +1,12 @@
+package com.example.webtestingia.gherkin;
+
+/**
+ * Paso de un escenario Gherkin.
+ *
+ * @param keyword      palabra clave tal como aparece en el archivo.
+ * @param tipoEfectivo tipo Given/When/Then resultante; las conjunciones heredan el del paso anterior.
+ * @param texto        texto del paso sin la palabra clave.
+ * @param linea        número de línea (base 1).
+ */
+public record GherkinStep(StepKeyword keyword, StepKeyword tipoEfectivo, String texto, int linea) {
+}
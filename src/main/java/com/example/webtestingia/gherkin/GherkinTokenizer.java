@@ -0,0 +1,309 @@
+package com.example.webtestingia.gherkin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizador Gherkin de una sola pasada. Recorre el texto carácter a carácter sin dividirlo en líneas
+ * ni aplicar expresiones regulares, y sólo crea cadenas para nombres, tags y textos de paso.
+ * Reconoce las palabras clave en inglés sin distinguir mayúsculas, igual que el análisis previo.
+ */
+public final class GherkinTokenizer {
+
+    private static final String[] KEYWORDS_OUTLINE = {"Scenario Outline:", "Scenario Template:"};
+    private static final String[] KEYWORDS_ESCENARIO = {"Scenario:", "Example:"};
+    private static final String[] KEYWORDS_EJEMPLOS = {"Examples:", "Scenarios:"};
+    private static final String[] KEYWORDS_PASO = {"Given ", "When ", "Then ", "And ", "But ", "* "};
+    private static final StepKeyword[] TIPOS_PASO = {
+            StepKeyword.GIVEN, StepKeyword.WHEN, StepKeyword.THEN, StepKeyword.AND, StepKeyword.BUT, StepKeyword.STAR
+    };
+
+    private GherkinTokenizer() {
+    }
+
+    /**
+     * Tokeniza el contenido completo de un archivo .feature.
+     *
+     * @param contenido texto Gherkin.
+     * @return documento con Feature, escenarios, tags y pasos.
+     */
+    public static GherkinDocument parse(CharSequence contenido) {
+        return new Estado(contenido.toString()).ejecutar();
+    }
+
+    /**
+     * Tokeniza sólo la cabecera de un archivo: lee líneas hasta la primera declaración de escenario
+     * (incluida) y descarta el resto sin leerlo. El documento resultante contiene la Feature, sus tags,
+     * el Background y el primer escenario sin pasos, suficiente para {@link GherkinDocument#primerEscenario()}
+     * y {@link GherkinDocument#tagsCabecera()}.
+     *
+     * @param lector lector posicionado al inicio del archivo; no se cierra.
+     * @return documento parcial con la cabecera.
+     * @throws IOException si falla la lectura.
+     */
+    public static GherkinDocument parseCabecera(BufferedReader lector) throws IOException {
+        StringBuilder cabecera = new StringBuilder();
+        String delimitador = null;
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            cabecera.append(linea).append('\n');
+            String recortada = linea.strip();
+            if (delimitador != null) {
+                if (recortada.startsWith(delimitador)) {
+                    delimitador = null;
+                }
+            } else if (recortada.startsWith("\"\"\"") || recortada.startsWith("```")) {
+                delimitador = recortada.substring(0, 3);
+            } else if (esDeclaracionEscenario(recortada)) {
+                break;
+            }
+        }
+        return parse(cabecera);
+    }
+
+    private static boolean esDeclaracionEscenario(String linea) {
+        for (String[] grupo : new String[][]{KEYWORDS_OUTLINE, KEYWORDS_ESCENARIO}) {
+            for (String keyword : grupo) {
+                if (linea.regionMatches(true, 0, keyword, 0, keyword.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estado mutable de una pasada; no se comparte entre hilos.
+     */
+    private static final class Estado {
+
+        private final String texto;
+        private final List<GherkinScenario> escenarios = new ArrayList<>();
+        private final List<String> tags = new ArrayList<>();
+        private List<String> tagsPendientes = new ArrayList<>();
+        private String feature = "";
+        private List<String> featureTags = List.of();
+        private GherkinScenario background;
+        private String primeraLinea;
+
+        private String nombreActual;
+        private boolean outlineActual;
+        private boolean backgroundActual;
+        private List<String> tagsActuales;
+        private List<GherkinStep> pasosActuales;
+        private int lineaActual;
+        private int lineaFinActual;
+        private int filasEjemplos;
+        private boolean enEjemplos;
+        private boolean encabezadoEjemplos;
+        private StepKeyword ultimoTipo;
+        private String delimitadorDocString;
+
+        private Estado(String texto) {
+            this.texto = texto;
+        }
+
+        private GherkinDocument ejecutar() {
+            int longitud = texto.length();
+            int inicio = 0;
+            int numero = 0;
+            while (true) {
+                int fin = texto.indexOf('\n', inicio);
+                if (fin < 0) {
+                    fin = longitud;
+                }
+                numero++;
+                int finContenido = fin > inicio && texto.charAt(fin - 1) == '\r' ? fin - 1 : fin;
+                if (primeraLinea == null) {
+                    primeraLinea = texto.substring(inicio, finContenido);
+                }
+                procesarLinea(inicio, finContenido, numero);
+                inicio = fin + 1;
+                if (inicio >= longitud) {
+                    break;
+                }
+            }
+            cerrarEscenario();
+            return new GherkinDocument(feature, featureTags, background, List.copyOf(escenarios),
+                    List.copyOf(tags), primeraLinea, numero);
+        }
+
+        private void procesarLinea(int inicio, int fin, int numero) {
+            int s = inicio;
+            while (s < fin && Character.isWhitespace(texto.charAt(s))) {
+                s++;
+            }
+            int e = fin;
+            while (e > s && Character.isWhitespace(texto.charAt(e - 1))) {
+                e--;
+            }
+            if (delimitadorDocString != null) {
+                if (empiezaCon(s, e, delimitadorDocString)) {
+                    delimitadorDocString = null;
+                }
+                marcarContenido(numero);
+                return;
+            }
+            if (s == e || texto.charAt(s) == '#') {
+                return;
+            }
+            char primero = texto.charAt(s);
+            if (primero == '@') {
+                leerTags(s, e);
+                return;
+            }
+            if (primero == '|') {
+                if (enEjemplos) {
+                    if (encabezadoEjemplos) {
+                        filasEjemplos++;
+                    } else {
+                        encabezadoEjemplos = true;
+                    }
+                }
+                marcarContenido(numero);
+                return;
+            }
+            if (empiezaCon(s, e, "\"\"\"") || empiezaCon(s, e, "```")) {
+                delimitadorDocString = texto.substring(s, s + 3);
+                marcarContenido(numero);
+                return;
+            }
+            int paso = indicePaso(s, e);
+            if (paso >= 0) {
+                agregarPaso(paso, s, e, numero);
+                return;
+            }
+            if (empiezaCon(s, e, "Feature:")) {
+                feature = nombre(s + "Feature:".length(), e);
+                featureTags = List.copyOf(tagsPendientes);
+                tagsPendientes = new ArrayList<>();
+                return;
+            }
+            if (empiezaCon(s, e, "Background:")) {
+                abrirEscenario(nombre(s + "Background:".length(), e), false, true, numero);
+                return;
+            }
+            for (String keyword : KEYWORDS_OUTLINE) {
+                if (empiezaCon(s, e, keyword)) {
+                    abrirEscenario(nombre(s + keyword.length(), e), true, false, numero);
+                    return;
+                }
+            }
+            for (String keyword : KEYWORDS_ESCENARIO) {
+                if (empiezaCon(s, e, keyword)) {
+                    abrirEscenario(nombre(s + keyword.length(), e), false, false, numero);
+                    return;
+                }
+            }
+            for (String keyword : KEYWORDS_EJEMPLOS) {
+                if (empiezaCon(s, e, keyword)) {
+                    enEjemplos = true;
+                    encabezadoEjemplos = false;
+                    tagsPendientes = new ArrayList<>();
+                    marcarContenido(numero);
+                    return;
+                }
+            }
+            if (empiezaCon(s, e, "Rule:")) {
+                cerrarEscenario();
+                tagsPendientes = new ArrayList<>();
+                return;
+            }
+            // Descripción libre de la Feature o del escenario.
+            marcarContenido(numero);
+        }
+
+        private void abrirEscenario(String nombre, boolean outline, boolean esBackground, int numero) {
+            cerrarEscenario();
+            nombreActual = nombre;
+            outlineActual = outline;
+            backgroundActual = esBackground;
+            tagsActuales = List.copyOf(tagsPendientes);
+            tagsPendientes = new ArrayList<>();
+            pasosActuales = new ArrayList<>();
+            lineaActual = numero;
+            lineaFinActual = numero;
+            filasEjemplos = 0;
+            enEjemplos = false;
+            encabezadoEjemplos = false;
+            ultimoTipo = null;
+        }
+
+        private void cerrarEscenario() {
+            if (nombreActual == null) {
+                return;
+            }
+            GherkinScenario escenario = new GherkinScenario(nombreActual, outlineActual, backgroundActual,
+                    tagsActuales, List.copyOf(pasosActuales), filasEjemplos, lineaActual, lineaFinActual);
+            if (backgroundActual) {
+                background = escenario;
+            } else {
+                escenarios.add(escenario);
+            }
+            nombreActual = null;
+            enEjemplos = false;
+        }
+
+        private void agregarPaso(int indice, int s, int e, int numero) {
+            if (nombreActual == null) {
+                return;
+            }
+            StepKeyword keyword = TIPOS_PASO[indice];
+            StepKeyword tipo = keyword.esConjuncion() ? (ultimoTipo == null ? keyword : ultimoTipo) : keyword;
+            ultimoTipo = tipo;
+            String textoPaso = nombre(s + KEYWORDS_PASO[indice].length(), e);
+            pasosActuales.add(new GherkinStep(keyword, tipo, textoPaso, numero));
+            lineaFinActual = numero;
+        }
+
+        private void marcarContenido(int numero) {
+            if (nombreActual != null) {
+                lineaFinActual = numero;
+            }
+        }
+
+        private void leerTags(int s, int e) {
+            int i = s;
+            while (i < e) {
+                while (i < e && Character.isWhitespace(texto.charAt(i))) {
+                    i++;
+                }
+                if (i >= e || texto.charAt(i) == '#') {
+                    return;
+                }
+                int inicioTag = i;
+                while (i < e && !Character.isWhitespace(texto.charAt(i))) {
+                    i++;
+                }
+                if (texto.charAt(inicioTag) == '@' && i - inicioTag > 1) {
+                    String tag = texto.substring(inicioTag, i);
+                    tags.add(tag);
+                    tagsPendientes.add(tag);
+                }
+            }
+        }
+
+        private int indicePaso(int s, int e) {
+            for (int i = 0; i < KEYWORDS_PASO.length; i++) {
+                if (empiezaCon(s, e, KEYWORDS_PASO[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean empiezaCon(int s, int e, String keyword) {
+            return e - s >= keyword.length() && texto.regionMatches(true, s, keyword, 0, keyword.length());
+        }
+
+        private String nombre(int desde, int hasta) {
+            int s = desde;
+            while (s < hasta && Character.isWhitespace(texto.charAt(s))) {
+                s++;
+            }
+            return texto.substring(s, hasta);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.webtestingia.gherkin;
+
+/**
+ * Palabras clave de paso reconocidas por el tokenizador Gherkin.
+ */
+public enum StepKeyword {
+    GIVEN,
+    WHEN,
+    THEN,
+    AND,
+    BUT,
+    STAR;
+
+    /**
+     * Indica si la palabra clave hereda el tipo del paso anterior (And, But, *).
+     *
+     * @return true si es una conjunción.
+     */
+    public boolean esConjuncion() {
+        return this == AND || this == BUT || this == STAR;
+    }
+}
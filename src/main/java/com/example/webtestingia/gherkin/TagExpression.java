@@ -0,0 +1,93 @@
+package com.example.webtestingia.gherkin;
+
+import java.util.Collection;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Expresión booleana de tags al estilo Cucumber, por ejemplo {@code @smoke and not (@slow or @wip)}.
+ * Los operadores {@code and}, {@code or} y {@code not} no distinguen mayúsculas; los tags sí, igual que en Cucumber.
+ * La precedencia es {@code not} &gt; {@code and} &gt; {@code or}.
+ */
+public sealed interface TagExpression {
+
+    /**
+     * Tag individual.
+     *
+     * @param nombre tag con su prefijo {@code @}.
+     */
+    record Etiqueta(String nombre) implements TagExpression {
+        @Override
+        public <T> T reducir(Function<String, T> tag, BinaryOperator<T> y, BinaryOperator<T> o, UnaryOperator<T> no) {
+            return tag.apply(nombre);
+        }
+    }
+
+    /**
+     * Conjunción de dos expresiones.
+     */
+    record Conjuncion(TagExpression izquierda, TagExpression derecha) implements TagExpression {
+        @Override
+        public <T> T reducir(Function<String, T> tag, BinaryOperator<T> y, BinaryOperator<T> o, UnaryOperator<T> no) {
+            return y.apply(izquierda.reducir(tag, y, o, no), derecha.reducir(tag, y, o, no));
+        }
+    }
+
+    /**
+     * Disyunción de dos expresiones.
+     */
+    record Disyuncion(TagExpression izquierda, TagExpression derecha) implements TagExpression {
+        @Override
+        public <T> T reducir(Function<String, T> tag, BinaryOperator<T> y, BinaryOperator<T> o, UnaryOperator<T> no) {
+            return o.apply(izquierda.reducir(tag, y, o, no), derecha.reducir(tag, y, o, no));
+        }
+    }
+
+    /**
+     * Negación de una expresión.
+     */
+    record Negacion(TagExpression expresion) implements TagExpression {
+        @Override
+        public <T> T reducir(Function<String, T> tag, BinaryOperator<T> y, BinaryOperator<T> o, UnaryOperator<T> no) {
+            return no.apply(expresion.reducir(tag, y, o, no));
+        }
+    }
+
+    /**
+     * Recorre la expresión combinando el valor de cada tag con los operadores indicados. Permite evaluar
+     * la misma expresión sobre conjuntos de tags, conjuntos de ids u otras representaciones.
+     *
+     * @param tag función que da el valor de un tag.
+     * @param y   combinación para {@code and}.
+     * @param o   combinación para {@code or}.
+     * @param no  transformación para {@code not}.
+     * @param <T> tipo del valor calculado.
+     * @return valor de la expresión.
+     */
+    <T> T reducir(Function<String, T> tag, BinaryOperator<T> y, BinaryOperator<T> o, UnaryOperator<T> no);
+
+    /**
+     * Evalúa la expresión sobre los tags de un escenario o caso.
+     *
+     * @param tags tags presentes.
+     * @return true si los tags cumplen la expresión.
+     */
+    default boolean evaluar(Collection<String> tags) {
+        return reducir(tags::contains, Boolean::logicalAnd, Boolean::logicalOr, valor -> !valor);
+    }
+
+    /**
+     * Interpreta una expresión de tags.
+     *
+     * @param texto expresión, por ejemplo {@code @smoke and not @slow}.
+     * @return expresión compilada.
+     * @throws IllegalArgumentException si la expresión está vacía o mal formada.
+     */
+    static TagExpression parse(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("La expresión de tags está vacía");
+        }
+        return new TagExpressionParser(texto).parse();
+    }
+}
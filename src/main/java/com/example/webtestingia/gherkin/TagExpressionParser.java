@@ -0,0 +1,96 @@
+package com.example.webtestingia.gherkin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser descendente recursivo de {@link TagExpression}.
+ */
+final class TagExpressionParser {
+
+    private final String texto;
+    private final List<String> tokens = new ArrayList<>();
+    private int posicion;
+
+    TagExpressionParser(String texto) {
+        this.texto = texto;
+        int i = 0;
+        while (i < texto.length()) {
+            char c = texto.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                int inicio = i;
+                while (i < texto.length() && !Character.isWhitespace(texto.charAt(i))
+                        && texto.charAt(i) != '(' && texto.charAt(i) != ')') {
+                    i++;
+                }
+                tokens.add(texto.substring(inicio, i));
+            }
+        }
+    }
+
+    TagExpression parse() {
+        TagExpression expresion = disyuncion();
+        if (posicion < tokens.size()) {
+            throw error("token inesperado '" + tokens.get(posicion) + "'");
+        }
+        return expresion;
+    }
+
+    private TagExpression disyuncion() {
+        TagExpression expresion = conjuncion();
+        while (acepta("or")) {
+            expresion = new TagExpression.Disyuncion(expresion, conjuncion());
+        }
+        return expresion;
+    }
+
+    private TagExpression conjuncion() {
+        TagExpression expresion = negacion();
+        while (acepta("and")) {
+            expresion = new TagExpression.Conjuncion(expresion, negacion());
+        }
+        return expresion;
+    }
+
+    private TagExpression negacion() {
+        if (acepta("not")) {
+            return new TagExpression.Negacion(negacion());
+        }
+        return primario();
+    }
+
+    private TagExpression primario() {
+        if (posicion >= tokens.size()) {
+            throw error("se esperaba un tag al final");
+        }
+        String token = tokens.get(posicion++);
+        if (token.equals("(")) {
+            TagExpression expresion = disyuncion();
+            if (!acepta(")")) {
+                throw error("falta ')'");
+            }
+            return expresion;
+        }
+        if (token.length() < 2 || token.charAt(0) != '@') {
+            throw error("se esperaba un tag con '@' y se encontró '" + token + "'");
+        }
+        return new TagExpression.Etiqueta(token);
+    }
+
+    private boolean acepta(String palabra) {
+        if (posicion < tokens.size() && tokens.get(posicion).equalsIgnoreCase(palabra)) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+
+    private IllegalArgumentException error(String detalle) {
+        return new IllegalArgumentException("Expresión de tags inválida '" + texto + "': " + detalle);
+    }
+}
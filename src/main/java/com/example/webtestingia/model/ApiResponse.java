@@ -22,6 +22,10 @@ public final class ApiResponse {
         return ResponseEntity.ok(Map.of("data", payload));
     }
 
+    public static <T> ResponseEntity<Map<String, Object>> ok(T payload, String etag) {
+        return ResponseEntity.ok().eTag(etag).body(Map.of("data", payload));
+    }
+
     public static ResponseEntity<Map<String, Object>> notification(HttpStatus status, String message, Object detail, String type) {
         Map<String, Object> body = new HashMap<>();
         Map<String, Object> notification = new LinkedHashMap<>();
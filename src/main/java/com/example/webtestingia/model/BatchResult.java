@@ -0,0 +1,13 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Resultado de aplicar un lote de operaciones sobre casos.
+ *
+ * @param exitosas   cantidad de operaciones aplicadas.
+ * @param fallidas   cantidad de operaciones que no pudieron aplicarse.
+ * @param resultados resultado de cada operación, en el orden del lote.
+ */
+public record BatchResult(int exitosas, int fallidas, List<CaseOperationResult> resultados) {
+}
@@ -0,0 +1,14 @@
+package com.example.webtestingia.model;
+
+import java.time.Instant;
+
+/**
+ * Cambio registrado en el diario de un proyecto.
+ *
+ * @param secuencia número del cambio dentro del proyecto, creciente y sin repetirse.
+ * @param ruta      ruta relativa del caso.
+ * @param tipo      {@code CREADO}, {@code ACTUALIZADO} o {@code ELIMINADO}.
+ * @param fecha     momento en que se registró el cambio.
+ */
+public record CaseChange(long secuencia, String ruta, String tipo, Instant fecha) {
+}
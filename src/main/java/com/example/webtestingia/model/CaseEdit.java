@@ -0,0 +1,14 @@
+package com.example.webtestingia.model;
+
+/**
+ * Edición parcial de un archivo .feature. Se indica un rango de líneas ({@code desde}/{@code hasta}) o el
+ * nombre de un escenario, cuyas líneas (desde la palabra clave hasta su última línea, sin los tags previos)
+ * se reemplazan por {@code contenido}.
+ *
+ * @param desde     primera línea a reemplazar (base 1).
+ * @param hasta     última línea a reemplazar, inclusive; {@code desde - 1} inserta antes de {@code desde}.
+ * @param escenario nombre del escenario a reemplazar, en lugar del rango de líneas.
+ * @param contenido texto nuevo; vacío elimina las líneas.
+ */
+public record CaseEdit(Integer desde, Integer hasta, String escenario, String contenido) {
+}
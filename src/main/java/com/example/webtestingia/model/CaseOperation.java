@@ -0,0 +1,22 @@
+package com.example.webtestingia.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Operación de un lote sobre casos .feature.
+ *
+ * @param tipo      operación a aplicar; no distingue mayúsculas.
+ * @param ruta      ruta relativa del archivo dentro del proyecto.
+ * @param contenido contenido Gherkin para crear o actualizar; se ignora al eliminar.
+ * @param ifMatch   ETag esperado del caso al actualizar, o null para no comprobarlo.
+ */
+public record CaseOperation(@JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_VALUES) Tipo tipo,
+                            String ruta, String contenido, String ifMatch) {
+
+    /**
+     * Tipos de operación admitidos.
+     */
+    public enum Tipo {
+        CREAR, ACTUALIZAR, ELIMINAR
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.webtestingia.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de una operación de un lote.
+ *
+ * @param indice posición de la operación en el lote.
+ * @param ruta   ruta relativa del caso.
+ * @param estado código HTTP equivalente: 201, 200 o 204 si se aplicó; 404, 412 o 500 si no.
+ * @param etag   ETag del caso tras crear o actualizar.
+ * @param error  motivo del fallo, si lo hubo.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CaseOperationResult(int indice, String ruta, int estado, String etag, String error) {
+
+    /**
+     * Indica si la operación se aplicó.
+     */
+    public boolean exitosa() {
+        return estado < 300;
+    }
+}
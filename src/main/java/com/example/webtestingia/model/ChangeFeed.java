@@ -0,0 +1,16 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Cambios de un proyecto posteriores a una secuencia dada.
+ *
+ * @param desde    secuencia indicada por el cliente.
+ * @param hasta    secuencia del último cambio incluido; es la que debe enviarse en la siguiente consulta.
+ * @param ultima   secuencia del último cambio registrado; si {@code hasta} es menor quedan cambios por pedir.
+ * @param reinicio true si el diario ya no conserva los cambios posteriores a {@code desde} (o no reconoce esa
+ *                 secuencia): el cliente debe volver a listar el proyecto completo y continuar desde {@code ultima}.
+ * @param cambios  cambios en orden de secuencia.
+ */
+public record ChangeFeed(long desde, long hasta, long ultima, boolean reinicio, List<CaseChange> cambios) {
+}
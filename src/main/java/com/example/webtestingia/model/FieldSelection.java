@@ -0,0 +1,71 @@
+package com.example.webtestingia.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Conjunto de campos solicitados mediante el parámetro {@code fields=} de un endpoint.
+ * Los servicios sólo calculan los campos incluidos y el resto queda en null, por lo que tampoco se serializa.
+ */
+public final class FieldSelection {
+
+    private final Set<String> campos;
+
+    private FieldSelection(Set<String> campos) {
+        this.campos = Set.copyOf(campos);
+    }
+
+    /**
+     * Interpreta el parámetro {@code fields} (lista separada por comas).
+     *
+     * @param fields      valor recibido, o null para usar los campos por defecto.
+     * @param disponibles campos que admite el recurso.
+     * @param porDefecto  campos usados cuando no se indica ninguno.
+     * @return selección validada.
+     */
+    public static FieldSelection de(String fields, Set<String> disponibles, Set<String> porDefecto) {
+        if (fields == null || fields.isBlank()) {
+            return new FieldSelection(porDefecto);
+        }
+        Set<String> solicitados = new LinkedHashSet<>();
+        for (String campo : Arrays.stream(fields.split(",")).map(String::trim).filter(c -> !c.isEmpty()).toList()) {
+            if (!disponibles.contains(campo)) {
+                throw new IllegalArgumentException("Campo desconocido en fields: " + campo + ". Disponibles: " + disponibles);
+            }
+            solicitados.add(campo);
+        }
+        return new FieldSelection(solicitados);
+    }
+
+    /**
+     * Selección con un conjunto fijo de campos.
+     *
+     * @param campos campos incluidos.
+     * @return selección.
+     */
+    public static FieldSelection de(Set<String> campos) {
+        return new FieldSelection(campos);
+    }
+
+    /**
+     * Indica si el campo fue solicitado.
+     *
+     * @param campo nombre del campo.
+     * @return true si debe calcularse y serializarse.
+     */
+    public boolean incluye(String campo) {
+        return campos.contains(campo);
+    }
+
+    /**
+     * Representación canónica de la selección (campos ordenados y separados por comas), de modo que dos
+     * selecciones con los mismos campos producen la misma clave sin importar el orden en que se pidieron.
+     *
+     * @return clave de la selección.
+     */
+    public String clave() {
+        return String.join(",", new TreeSet<>(campos));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Resultado de importar un archivo ZIP en un proyecto.
+ *
+ * @param creados      cantidad de archivos que no existían en el proyecto.
+ * @param actualizados cantidad de archivos existentes que se sobrescribieron.
+ * @param omitidos     nombres de las entradas ignoradas por no ser .feature ni project.json o por repetirse.
+ */
+public record ImportResult(int creados, int actualizados, List<String> omitidos) {
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -14,6 +15,11 @@ import java.util.UUID;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProjectMetadata {
 
+    /**
+     * Campos que pueden pedirse con {@code fields=}.
+     */
+    public static final Set<String> CAMPOS = Set.of("id", "name", "jiraCode", "type", "author", "editor", "cases", "averageQuality", "quality");
+
     private String id;
 
     @JsonProperty("name")
@@ -40,6 +46,18 @@ public class ProjectMetadata {
     @JsonAlias("casos")
     private List<String> cases = new ArrayList<>();
 
+    /**
+     * Calidad promedio de los casos; se calcula al consultar el proyecto y no se persiste en project.json.
+     */
+    @JsonProperty(value = "averageQuality", access = JsonProperty.Access.READ_ONLY)
+    private Double averageQuality;
+
+    /**
+     * Agregados de calidad de los casos; se calculan al consultar el proyecto y no se persisten en project.json.
+     */
+    @JsonProperty(value = "quality", access = JsonProperty.Access.READ_ONLY)
+    private ProjectQuality quality;
+
     /**
      * Genera un metadato por defecto con valores básicos y un identificador único.
      *
@@ -112,4 +130,58 @@ public class ProjectMetadata {
     public void setCases(List<String> cases) {
         this.cases = cases;
     }
+
+    public Double getAverageQuality() {
+        return averageQuality;
+    }
+
+    public void setAverageQuality(Double averageQuality) {
+        this.averageQuality = averageQuality;
+    }
+
+    public ProjectQuality getQuality() {
+        return quality;
+    }
+
+    public void setQuality(ProjectQuality quality) {
+        this.quality = quality;
+    }
+
+    /**
+     * Copia independiente, para entregar metadatos cacheados sin que los cambios del llamador los alteren.
+     *
+     * @return nueva instancia con los mismos valores.
+     */
+    public ProjectMetadata copia() {
+        ProjectMetadata copia = new ProjectMetadata();
+        copia.id = id;
+        copia.name = name;
+        copia.jiraCode = jiraCode;
+        copia.type = type;
+        copia.author = author;
+        copia.editor = editor;
+        copia.cases = cases == null ? null : new ArrayList<>(cases);
+        copia.averageQuality = averageQuality;
+        copia.quality = quality;
+        return copia;
+    }
+
+    /**
+     * Deja en null los campos no solicitados para que no se serialicen.
+     *
+     * @param campos campos solicitados.
+     * @return la misma instancia.
+     */
+    public ProjectMetadata proyectar(FieldSelection campos) {
+        if (!campos.incluye("id")) id = null;
+        if (!campos.incluye("name")) name = null;
+        if (!campos.incluye("jiraCode")) jiraCode = null;
+        if (!campos.incluye("type")) type = null;
+        if (!campos.incluye("author")) author = null;
+        if (!campos.incluye("editor")) editor = null;
+        if (!campos.incluye("cases")) cases = null;
+        if (!campos.incluye("averageQuality")) averageQuality = null;
+        if (!campos.incluye("quality")) quality = null;
+        return this;
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agregados de calidad de los casos de un proyecto, mantenidos a medida que los casos cambian.
+ *
+ * @param casos          cantidad de casos del proyecto.
+ * @param analizados     casos con análisis de calidad (los ilegibles quedan fuera).
+ * @param promedio       puntaje promedio, o null si no hay casos analizados.
+ * @param minimo         puntaje mínimo, o null si no hay casos analizados.
+ * @param maximo         puntaje máximo, o null si no hay casos analizados.
+ * @param fallosPorRegla cantidad de casos que no cumplen cada regla, por id de regla.
+ * @param histograma     cantidad de casos por tramo de puntaje de ancho 0.1, desde [0, 0.1) hasta [0.9, 1].
+ */
+public record ProjectQuality(int casos, int analizados, Double promedio, Double minimo, Double maximo,
+                             Map<String, Integer> fallosPorRegla, List<Integer> histograma) {
+}
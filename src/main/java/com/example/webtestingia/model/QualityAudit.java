@@ -0,0 +1,43 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una auditoría de calidad sobre un proyecto o sobre todos. Si el trabajo se canceló,
+ * refleja sólo los casos analizados hasta ese momento.
+ *
+ * @param proyectos   proyectos incluidos.
+ * @param casos       casos encontrados.
+ * @param analizados  casos analizados.
+ * @param ilegibles   casos que no pudieron leerse, por ejemplo porque se eliminaron durante la auditoría.
+ * @param huella      huella de las reglas de calidad vigentes al iniciar.
+ * @param promedio    puntaje promedio, o null si no se analizó ningún caso.
+ * @param percentiles puntajes {@code min}, {@code p10}, {@code p25}, {@code p50}, {@code p75}, {@code p90} y
+ *                    {@code max} por rango más cercano; vacío si no se analizó ningún caso.
+ * @param reglas      casos que cumplen y que no cumplen cada regla, por id de regla.
+ * @param peores      casos con menor puntaje, del peor al mejor.
+ */
+public record QualityAudit(int proyectos, int casos, int analizados, int ilegibles, String huella, Double promedio,
+                           Map<String, Double> percentiles, Map<String, Regla> reglas, List<Caso> peores) {
+
+    /**
+     * Conteo de una regla.
+     *
+     * @param cumplen casos que cumplen la regla.
+     * @param fallan  casos que no la cumplen.
+     */
+    public record Regla(int cumplen, int fallan) {
+    }
+
+    /**
+     * Caso destacado por su bajo puntaje.
+     *
+     * @param proyecto       proyecto del caso.
+     * @param ruta           ruta relativa dentro del proyecto.
+     * @param puntaje        puntaje de calidad.
+     * @param reglasFalladas ids de las reglas que no cumple.
+     */
+    public record Caso(String proyecto, String ruta, double puntaje, List<String> reglasFalladas) {
+    }
+}
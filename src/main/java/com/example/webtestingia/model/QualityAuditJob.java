@@ -0,0 +1,21 @@
+package com.example.webtestingia.model;
+
+import java.time.Instant;
+
+/**
+ * Estado de un trabajo de auditoría de calidad ejecutado en segundo plano.
+ *
+ * @param id         identificador del trabajo.
+ * @param proyecto   proyecto auditado, o null si abarca todos.
+ * @param peores     cantidad de peores casos pedida.
+ * @param estado     {@code EN_CURSO}, {@code COMPLETADO}, {@code CANCELADO} o {@code FALLIDO}.
+ * @param total      casos a analizar; 0 mientras se enumeran.
+ * @param procesados casos ya analizados o descartados por ilegibles.
+ * @param inicio     momento de creación del trabajo.
+ * @param duracionMs milisegundos transcurridos desde el inicio, o duración total si ya terminó.
+ * @param error      motivo del fallo, o null.
+ * @param resultado  resultado al terminar (parcial si se canceló), o null mientras está en curso.
+ */
+public record QualityAuditJob(String id, String proyecto, int peores, String estado, int total, int procesados,
+                              Instant inicio, long duracionMs, String error, QualityAudit resultado) {
+}
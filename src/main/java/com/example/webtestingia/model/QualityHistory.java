@@ -0,0 +1,21 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Historial de calidad de un caso en un rango de tiempo, en columnas paralelas para graficarlo sin convertir
+ * cada punto: el punto {@code i} es {@code tiempos[i]}, {@code puntajes[i]} y {@code falladas[i]}. Sólo hay un
+ * punto cuando el resultado cambió; la eliminación del caso no genera punto.
+ *
+ * @param ruta     ruta relativa del caso.
+ * @param desde    inicio del rango consultado, en milisegundos desde epoch.
+ * @param hasta    fin del rango consultado, inclusive.
+ * @param reglas   ids de regla según su bit: la regla {@code reglas[b]} corresponde al bit {@code 1L << b}.
+ * @param tiempos  instante de cada punto, en milisegundos desde epoch y en orden creciente.
+ * @param puntajes puntaje de cada punto.
+ * @param falladas reglas falladas en cada punto, como máscara de bits sobre {@code reglas}.
+ * @param truncado true si se alcanzó el límite: la consulta continúa desde el último tiempo más uno.
+ */
+public record QualityHistory(String ruta, long desde, long hasta, List<String> reglas,
+                             long[] tiempos, float[] puntajes, long[] falladas, boolean truncado) {
+}
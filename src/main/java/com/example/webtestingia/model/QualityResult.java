@@ -6,7 +6,8 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Resultado del análisis de calidad de un caso Gherkin.
+ * Resultado del análisis de calidad de un caso Gherkin. Si el caso tiene escenarios, {@code score} pondera
+ * el puntaje de cada escenario por sus ejecuciones y una regla falla si algún escenario no la cumple.
  */
 public class QualityResult {
 
@@ -15,6 +16,7 @@ public class QualityResult {
     private List<QualityRuleOutcome> failedRules = new ArrayList<>();
     private List<String> suggestions = new ArrayList<>();
     private Map<String, String> ruleDetails = new HashMap<>();
+    private List<ScenarioQuality> scenarios = new ArrayList<>();
 
     public double getScore() {
         return score;
@@ -55,4 +57,12 @@ public class QualityResult {
     public void setRuleDetails(Map<String, String> ruleDetails) {
         this.ruleDetails = ruleDetails;
     }
+
+    public List<ScenarioQuality> getScenarios() {
+        return scenarios;
+    }
+
+    public void setScenarios(List<ScenarioQuality> scenarios) {
+        this.scenarios = scenarios;
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.webtestingia.model;
 
+import java.util.Map;
+
 /**
  * Configuración individual de una regla de calidad.
  */
@@ -10,6 +12,8 @@ public class QualityRule {
     private String descripcion;
     private boolean activo;
     private double peso;
+    private String tipo;
+    private Map<String, Object> parametros = Map.of();
 
     public String getId() {
         return id;
@@ -50,4 +54,27 @@ public class QualityRule {
     public void setPeso(double peso) {
         this.peso = peso;
     }
+
+    /**
+     * Tipo de comprobación ({@code regex}, {@code pasos}, {@code keywords}, {@code java} u otro registrado);
+     * null para las reglas predefinidas R1 a R5.
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    /**
+     * Parámetros de la comprobación según su tipo.
+     */
+    public Map<String, Object> getParametros() {
+        return parametros;
+    }
+
+    public void setParametros(Map<String, Object> parametros) {
+        this.parametros = parametros == null ? Map.of() : parametros;
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evolución de la calidad de un proyecto en tramos de igual duración. Cada tramo refleja el estado al final
+ * del mismo: todos los casos vigentes con su último puntaje conocido, hayan cambiado o no dentro del tramo.
+ *
+ * @param desde          inicio del rango, en milisegundos desde epoch.
+ * @param hasta          fin del rango, inclusive.
+ * @param tiempos        fin de cada tramo, en milisegundos desde epoch.
+ * @param promedios      puntaje promedio de los casos al final de cada tramo, o null si no había ninguno.
+ * @param casos          cantidad de casos con calidad registrada al final de cada tramo.
+ * @param fallosPorRegla por id de regla, cantidad de casos que no la cumplían al final de cada tramo.
+ */
+public record QualityTrend(long desde, long hasta, long[] tiempos, List<Double> promedios, int[] casos,
+                           Map<String, int[]> fallosPorRegla) {
+}
@@ -0,0 +1,16 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Resultado de calidad de un escenario dentro de un caso.
+ *
+ * @param name        nombre del escenario.
+ * @param line        línea de la palabra clave (base 1).
+ * @param outline     true si es un Scenario Outline.
+ * @param runs        ejecuciones que representa: filas de Examples si es un esquema, 1 si no.
+ * @param score       puntaje normalizado del escenario.
+ * @param failedRules ids de las reglas que no cumple.
+ */
+public record ScenarioQuality(String name, int line, boolean outline, int runs, double score, List<String> failedRules) {
+}
@@ -0,0 +1,15 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Escenario encontrado por la búsqueda global de casos.
+ *
+ * @param proyecto  nombre del proyecto.
+ * @param ruta      ruta relativa del archivo .feature.
+ * @param escenario nombre del escenario.
+ * @param linea     línea donde se declara el escenario (base 1).
+ * @param tags      tags efectivos del escenario (los de la Feature más los propios).
+ */
+public record SearchHit(String proyecto, String ruta, String escenario, int linea, List<String> tags) {
+}
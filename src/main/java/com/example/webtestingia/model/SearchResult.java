@@ -0,0 +1,12 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Resultado de una búsqueda global de casos.
+ *
+ * @param total cantidad total de escenarios que cumplen la consulta.
+ * @param items escenarios devueltos, ordenados por proyecto, ruta y línea, hasta el límite pedido.
+ */
+public record SearchResult(int total, List<SearchHit> items) {
+}
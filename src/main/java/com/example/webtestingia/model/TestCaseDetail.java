@@ -11,6 +11,7 @@ public class TestCaseDetail {
     private String contenido;
     private List<String> escenarios;
     private QualityResult calidad;
+    private boolean calidadObsoleta;
 
     public String getRuta() {
         return ruta;
@@ -43,4 +44,15 @@ public class TestCaseDetail {
     public void setCalidad(QualityResult calidad) {
         this.calidad = calidad;
     }
+
+    /**
+     * Indica que {@code calidad} corresponde al contenido anterior porque el análisis del actual aún está en curso.
+     */
+    public boolean isCalidadObsoleta() {
+        return calidadObsoleta;
+    }
+
+    public void setCalidadObsoleta(boolean calidadObsoleta) {
+        this.calidadObsoleta = calidadObsoleta;
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Página de un listado de casos paginado por cursor.
+ *
+ * @param items      resúmenes de la página, ordenados por ruta.
+ * @param nextCursor cursor opaco para pedir la página siguiente, o null si no hay más casos.
+ */
+public record TestCasePage(List<TestCaseSummary> items, String nextCursor) {
+}
@@ -1,16 +1,36 @@
 package com.example.webtestingia.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
+import java.util.Set;
 
 /**
  * Resumen de un caso de prueba para listados generales.
+ * Si el archivo no pudo leerse, {@code error} describe el motivo y el resto de campos queda vacío.
+ * Los campos no solicitados mediante {@link FieldSelection} quedan en null y no se serializan.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TestCaseSummary {
 
+    /**
+     * Campos que pueden pedirse con {@code fields=}; {@code ruta} se incluye siempre.
+     */
+    public static final Set<String> CAMPOS = Set.of("ruta", "escenario", "escenarios", "tags", "tagsCabecera", "calidad");
+
+    /**
+     * Campos devueltos cuando no se indica {@code fields=}.
+     */
+    public static final Set<String> CAMPOS_POR_DEFECTO = Set.of("ruta", "escenario", "tags", "calidad");
+
     private String ruta;
     private String escenario;
+    private List<String> escenarios;
     private List<String> tags;
+    private List<String> tagsCabecera;
     private QualityResult calidad;
+    private Boolean calidadObsoleta;
+    private String error;
 
     public String getRuta() {
         return ruta;
@@ -28,6 +48,14 @@ public class TestCaseSummary {
         this.escenario = escenario;
     }
 
+    public List<String> getEscenarios() {
+        return escenarios;
+    }
+
+    public void setEscenarios(List<String> escenarios) {
+        this.escenarios = escenarios;
+    }
+
     public List<String> getTags() {
         return tags;
     }
@@ -36,6 +64,18 @@ public class TestCaseSummary {
         this.tags = tags;
     }
 
+    /**
+     * Tags de la Feature y del primer escenario, que se obtienen sin leer el archivo completo; null si no se
+     * pidieron.
+     */
+    public List<String> getTagsCabecera() {
+        return tagsCabecera;
+    }
+
+    public void setTagsCabecera(List<String> tagsCabecera) {
+        this.tagsCabecera = tagsCabecera;
+    }
+
     public QualityResult getCalidad() {
         return calidad;
     }
@@ -43,4 +83,24 @@ public class TestCaseSummary {
     public void setCalidad(QualityResult calidad) {
         this.calidad = calidad;
     }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * true si {@code calidad} corresponde al contenido anterior porque el análisis del actual aún está en
+     * curso; null en otro caso.
+     */
+    public Boolean getCalidadObsoleta() {
+        return calidadObsoleta;
+    }
+
+    public void setCalidadObsoleta(Boolean calidadObsoleta) {
+        this.calidadObsoleta = calidadObsoleta;
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.webtestingia.model;
+
+import java.util.List;
+
+/**
+ * Progreso del precalentamiento de arranque.
+ *
+ * @param estado      {@code PENDIENTE}, {@code EN_CURSO}, {@code COMPLETADO} o {@code DESACTIVADO}.
+ * @param listo       true si la instancia puede recibir tráfico.
+ * @param proyectos   proyectos encontrados al iniciar.
+ * @param tareas      tareas planificadas.
+ * @param completadas tareas terminadas, con o sin error.
+ * @param fallidas    tareas terminadas con error; no impiden quedar listo.
+ * @param errores     primeros errores, con el proyecto y la tarea que fallaron.
+ * @param duracionMs  milisegundos transcurridos desde el inicio, o duración total si ya terminó.
+ */
+public record WarmupStatus(String estado, boolean listo, int proyectos, int tareas, int completadas, int fallidas,
+                           List<String> errores, long duracionMs) {
+}
@@ -0,0 +1,16 @@
+package com.example.webtestingia.model.exception;
+
+/**
+ * Excepción lanzada cuando la versión indicada en If-Match ya no corresponde al recurso en disco.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * Constructor con detalle.
+     *
+     * @param message descripción del problema.
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
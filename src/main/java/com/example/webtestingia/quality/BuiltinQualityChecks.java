@@ -0,0 +1,235 @@
+package com.example.webtestingia.quality;
+
+import com.example.webtestingia.gherkin.GherkinDocument;
+import com.example.webtestingia.gherkin.GherkinScenario;
+import com.example.webtestingia.gherkin.GherkinStep;
+import com.example.webtestingia.gherkin.StepKeyword;
+import com.example.webtestingia.model.exception.InvalidConfigurationException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * Tipos de regla predefinidos y comprobaciones de las reglas históricas R1 a R5.
+ * <ul>
+ *     <li>{@code regex}: {@code patron} buscado en {@code sobre} (pasos, escenarios, feature o tags) con
+ *     {@code modo} alguno, todos o ninguno.</li>
+ *     <li>{@code pasos}: cantidad de pasos entre {@code minimo} y {@code maximo}, {@code por} documento o escenario.</li>
+ *     <li>{@code keywords}: palabras clave {@code requeridas} y {@code prohibidas}, {@code por} documento o escenario.
+ *     Given, When y Then se comparan por el tipo efectivo del paso (un And o But hereda el del paso anterior)
+ *     y And, But y {@code *} por la palabra clave escrita. Los pasos del Background cuentan en ambos modos:
+ *     por documento se miran todos los pasos y por escenario los del Background más los del escenario, igual
+ *     que en la vista por escenario con la que se evalúan las demás reglas.</li>
+ *     <li>{@code java}: instancia de {@code clase}, que implementa {@link QualityCheck}.</li>
+ * </ul>
+ */
+final class BuiltinQualityChecks {
+
+    private BuiltinQualityChecks() {
+    }
+
+    /**
+     * Fábricas de los tipos predefinidos.
+     */
+    static List<QualityCheckFactory> fabricas() {
+        return List.of(
+                fabrica("regex", BuiltinQualityChecks::regex),
+                fabrica("pasos", BuiltinQualityChecks::pasos),
+                fabrica("keywords", BuiltinQualityChecks::keywords),
+                fabrica("java", BuiltinQualityChecks::java));
+    }
+
+    /**
+     * Comprobación de una regla histórica sin {@code tipo}. Por escenario, R2 juzga el nombre del escenario
+     * en lugar de la primera línea del archivo y R1, R3, R4 y R5 miran sólo sus pasos y los del Background.
+     * R1, R4 y R5 buscan tipos de paso con la misma semántica que {@code keywords}: un And o But tras un Then
+     * cuenta como Then, y la palabra "then" fuera de un paso (en un nombre o en el texto) ya no cuenta, a
+     * diferencia de la búsqueda de texto original.
+     *
+     * @param id identificador de la regla.
+     * @return comprobación, o null si el id no es una regla predefinida.
+     */
+    static QualityCheck porId(String id) {
+        return switch (id) {
+            case "R1", "R4" -> documento -> documento.tiposPresentes().contains(StepKeyword.THEN);
+            case "R2" -> new QualityCheck() {
+                @Override
+                public boolean cumple(GherkinDocument documento) {
+                    return !documento.escenarios().isEmpty() && documento.primeraLinea().length() > 15;
+                }
+
+                @Override
+                public boolean cumple(GherkinDocument documento, GherkinScenario escenario) {
+                    return escenario.nombre().length() > 15;
+                }
+            };
+            case "R3" -> documento -> documento.totalPasos() <= 20;
+            case "R5" -> documento -> documento.tiposPresentes()
+                    .containsAll(Set.of(StepKeyword.GIVEN, StepKeyword.WHEN, StepKeyword.THEN));
+            default -> null;
+        };
+    }
+
+    private static QualityCheckFactory fabrica(String tipo, Function<Map<String, Object>, QualityCheck> crear) {
+        return new QualityCheckFactory() {
+            @Override
+            public String tipo() {
+                return tipo;
+            }
+
+            @Override
+            public QualityCheck crear(Map<String, Object> parametros) {
+                return crear.apply(parametros);
+            }
+        };
+    }
+
+    private static QualityCheck regex(Map<String, Object> parametros) {
+        String texto = requerido(parametros, "patron");
+        Pattern patron;
+        try {
+            patron = Pattern.compile(texto);
+        } catch (PatternSyntaxException e) {
+            throw new InvalidConfigurationException("Expresión regular inválida: " + e.getMessage());
+        }
+        String sobre = opcion(parametros, "sobre", "pasos", "escenarios", "feature", "tags");
+        Function<GherkinDocument, Stream<String>> textos = switch (sobre) {
+            case "escenarios" -> documento -> documento.escenarios().stream().map(GherkinScenario::nombre);
+            case "feature" -> documento -> Stream.of(documento.feature());
+            case "tags" -> documento -> documento.tags().stream();
+            default -> documento -> pasos(documento).map(GherkinStep::texto);
+        };
+        return switch (opcion(parametros, "modo", "alguno", "todos", "ninguno")) {
+            case "todos" -> documento -> textos.apply(documento).allMatch(valor -> patron.matcher(valor).find());
+            case "ninguno" -> documento -> textos.apply(documento).noneMatch(valor -> patron.matcher(valor).find());
+            default -> documento -> textos.apply(documento).anyMatch(valor -> patron.matcher(valor).find());
+        };
+    }
+
+    private static QualityCheck pasos(Map<String, Object> parametros) {
+        int minimo = entero(parametros, "minimo", 0);
+        int maximo = entero(parametros, "maximo", Integer.MAX_VALUE);
+        if (minimo > maximo) {
+            throw new InvalidConfigurationException("minimo no puede ser mayor que maximo");
+        }
+        if ("escenario".equals(opcion(parametros, "por", "documento", "escenario"))) {
+            return documento -> {
+                int comunes = documento.background() == null ? 0 : documento.background().pasos().size();
+                return documento.escenarios().stream()
+                        .mapToInt(escenario -> comunes + escenario.pasos().size())
+                        .allMatch(total -> total >= minimo && total <= maximo);
+            };
+        }
+        return documento -> documento.totalPasos() >= minimo && documento.totalPasos() <= maximo;
+    }
+
+    private static QualityCheck keywords(Map<String, Object> parametros) {
+        Set<StepKeyword> requeridas = palabrasClave(parametros, "requeridas");
+        Set<StepKeyword> prohibidas = palabrasClave(parametros, "prohibidas");
+        if (requeridas.isEmpty() && prohibidas.isEmpty()) {
+            throw new InvalidConfigurationException("Se requiere al menos una palabra clave en requeridas o prohibidas");
+        }
+        QualityCheck porDocumento = documento -> {
+            Set<StepKeyword> presentes = documento.tiposPresentes();
+            return presentes.containsAll(requeridas) && prohibidas.stream().noneMatch(presentes::contains);
+        };
+        if ("escenario".equals(opcion(parametros, "por", "documento", "escenario"))) {
+            return documento -> documento.escenarios().stream()
+                    .allMatch(escenario -> porDocumento.cumple(documento.soloEscenario(escenario)));
+        }
+        return porDocumento;
+    }
+
+    private static QualityCheck java(Map<String, Object> parametros) {
+        String nombre = requerido(parametros, "clase");
+        try {
+            Class<?> clase = Class.forName(nombre, true, Thread.currentThread().getContextClassLoader());
+            if (!QualityCheck.class.isAssignableFrom(clase)) {
+                throw new InvalidConfigurationException(nombre + " no implementa " + QualityCheck.class.getSimpleName());
+            }
+            try {
+                Constructor<?> conParametros = clase.getConstructor(Map.class);
+                return (QualityCheck) conParametros.newInstance(Map.copyOf(parametros));
+            } catch (NoSuchMethodException e) {
+                return (QualityCheck) clase.getConstructor().newInstance();
+            }
+        } catch (ClassNotFoundException e) {
+            throw new InvalidConfigurationException("Clase de regla no encontrada: " + nombre);
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw new InvalidConfigurationException("No se pudo instanciar " + nombre + ": " + e);
+        } catch (InvocationTargetException e) {
+            throw new InvalidConfigurationException("No se pudo instanciar " + nombre + ": " + e.getCause());
+        }
+    }
+
+    private static Stream<GherkinStep> pasos(GherkinDocument documento) {
+        Stream<GherkinStep> comunes = documento.background() == null ? Stream.empty() : documento.background().pasos().stream();
+        return Stream.concat(comunes, documento.escenarios().stream().flatMap(escenario -> escenario.pasos().stream()));
+    }
+
+    private static String requerido(Map<String, Object> parametros, String clave) {
+        Object valor = parametros.get(clave);
+        if (valor == null || String.valueOf(valor).isBlank()) {
+            throw new InvalidConfigurationException("Falta el parámetro " + clave);
+        }
+        return String.valueOf(valor);
+    }
+
+    private static String opcion(Map<String, Object> parametros, String clave, String porDefecto, String... otras) {
+        Object valor = parametros.get(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        String texto = String.valueOf(valor).trim().toLowerCase(Locale.ROOT);
+        if (texto.equals(porDefecto) || List.of(otras).contains(texto)) {
+            return texto;
+        }
+        List<String> validas = new ArrayList<>(List.of(otras));
+        validas.add(0, porDefecto);
+        throw new InvalidConfigurationException("Valor inválido para " + clave + ": " + valor + ". Válidos: " + validas);
+    }
+
+    private static int entero(Map<String, Object> parametros, String clave, int porDefecto) {
+        Object valor = parametros.get(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            int numero = Integer.parseInt(String.valueOf(valor).trim());
+            if (numero < 0) {
+                throw new InvalidConfigurationException(clave + " no puede ser negativo");
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new InvalidConfigurationException(clave + " debe ser un entero: " + valor);
+        }
+    }
+
+    private static Set<StepKeyword> palabrasClave(Map<String, Object> parametros, String clave) {
+        Object valor = parametros.get(clave);
+        if (valor == null) {
+            return Set.of();
+        }
+        Collection<?> nombres = valor instanceof Collection<?> lista ? lista : List.of(valor);
+        Set<StepKeyword> palabras = EnumSet.noneOf(StepKeyword.class);
+        for (Object nombre : nombres) {
+            try {
+                palabras.add(StepKeyword.valueOf(String.valueOf(nombre).trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Palabra clave desconocida en " + clave + ": " + nombre);
+            }
+        }
+        return palabras;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.webtestingia.quality;
+
+import com.example.webtestingia.gherkin.GherkinDocument;
+import com.example.webtestingia.gherkin.GherkinScenario;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.QualityRule;
+import com.example.webtestingia.model.QualityRuleOutcome;
+import com.example.webtestingia.model.ScenarioQuality;
+import com.example.webtestingia.model.exception.InvalidConfigurationException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto inmutable de reglas activas ya compiladas en {@link QualityCheck}. Una vez construido puede
+ * compartirse entre hilos sin sincronización: el analizador lo publica a través de un campo volátil y lo
+ * reemplaza entero al recargar la configuración.
+ */
+final class CompiledRuleSet {
+
+    private static final Map<String, String> MOTIVOS_REGLAS = Map.of(
+            "R1", "Asegura que el caso incluya al menos una validación observable (Then) para confirmar resultados; es buena práctica de QA porque evita flujos sin aserciones.",
+            "R2", "Un nombre descriptivo comunica claramente el objetivo del escenario y facilita el mantenimiento; buena práctica de QA para identificar cobertura rápidamente.",
+            "R3", "Limitar a 20 pasos mantiene los escenarios legibles y estables; buena práctica de QA para reducir flakiness y tiempos de ejecución.",
+            "R4", "Requiere validaciones Then para capturar comportamientos esperados; buena práctica de QA para detectar regresiones visibles.",
+            "R5", "El uso coherente de Given/When/Then mantiene la narrativa Gherkin y la comprensibilidad; buena práctica de QA para equipos multidisciplinarios."
+    );
+
+    private record CompiledRule(String id, double peso, String motivo, QualityCheck comprobacion) {
+    }
+
+    private final List<CompiledRule> reglas;
+    private final double pesoTotal;
+    private final String huella;
+    private final long modificacion;
+
+    private CompiledRuleSet(List<CompiledRule> reglas, String huella, long modificacion) {
+        this.reglas = List.copyOf(reglas);
+        this.pesoTotal = reglas.stream().mapToDouble(CompiledRule::peso).sum();
+        this.huella = huella;
+        this.modificacion = modificacion;
+    }
+
+    /**
+     * Compila las reglas activas. Las que declaran {@code tipo} se construyen con la fábrica de ese tipo; las
+     * que no, deben ser una de las reglas predefinidas R1 a R5.
+     *
+     * @param activas      reglas activas en el orden configurado.
+     * @param fabricas     fábricas disponibles por nombre de tipo.
+     * @param huella       huella del archivo de configuración del que provienen.
+     * @param modificacion fecha de modificación del archivo de configuración.
+     * @return conjunto inmutable listo para evaluar.
+     * @throws InvalidConfigurationException si un tipo no existe o sus parámetros son inválidos.
+     */
+    static CompiledRuleSet compilar(List<QualityRule> activas, Map<String, QualityCheckFactory> fabricas,
+                                    String huella, long modificacion) {
+        List<CompiledRule> compiladas = new ArrayList<>();
+        for (QualityRule regla : activas) {
+            compiladas.add(new CompiledRule(regla.getId(), regla.getPeso(), construirMotivo(regla), comprobacion(regla, fabricas)));
+        }
+        return new CompiledRuleSet(compiladas, huella, modificacion);
+    }
+
+    /**
+     * Evalúa todas las reglas sobre el documento ya tokenizado, escenario por escenario en una sola pasada.
+     * El puntaje del caso promedia el de sus escenarios ponderado por ejecuciones: un Scenario Outline pesa
+     * tantas como filas tengan sus Examples, contadas por el tokenizador sin expandirlas, ya que todas
+     * comparten los mismos pasos. Una regla figura como fallida si algún escenario no la cumple. Un documento
+     * sin escenarios se evalúa entero.
+     *
+     * @param documento modelo del caso producido por el tokenizador.
+     * @return resultado con puntaje, sugerencias y resultado por escenario.
+     */
+    QualityResult evaluar(GherkinDocument documento) {
+        boolean[] falla = new boolean[reglas.size()];
+        List<ScenarioQuality> porEscenario = new ArrayList<>(documento.escenarios().size());
+        double puntaje;
+        if (documento.escenarios().isEmpty()) {
+            puntaje = evaluarDocumento(documento, falla);
+        } else {
+            double ponderado = 0.0;
+            long ejecuciones = 0;
+            for (GherkinScenario escenario : documento.escenarios()) {
+                ScenarioQuality resultado = evaluarEscenario(documento, escenario, falla);
+                int peso = Math.max(1, resultado.runs());
+                ponderado += resultado.score() * peso;
+                ejecuciones += peso;
+                porEscenario.add(resultado);
+            }
+            puntaje = ponderado / ejecuciones;
+        }
+
+        QualityResult result = new QualityResult();
+        List<QualityRuleOutcome> cumplidas = new ArrayList<>();
+        List<QualityRuleOutcome> falladas = new ArrayList<>();
+        List<String> sugerencias = new ArrayList<>();
+        Map<String, String> detalleReglas = new HashMap<>();
+        for (int i = 0; i < reglas.size(); i++) {
+            CompiledRule regla = reglas.get(i);
+            if (falla[i]) {
+                falladas.add(new QualityRuleOutcome(regla.id(), regla.motivo()));
+                sugerencias.add(regla.motivo());
+            } else {
+                cumplidas.add(new QualityRuleOutcome(regla.id(), regla.motivo()));
+            }
+            detalleReglas.put(regla.id(), regla.motivo());
+        }
+        result.setScore(puntaje);
+        result.setPassedRules(cumplidas);
+        result.setFailedRules(falladas);
+        result.setSuggestions(sugerencias);
+        result.setRuleDetails(detalleReglas);
+        result.setScenarios(porEscenario);
+        return result;
+    }
+
+    private double evaluarDocumento(GherkinDocument documento, boolean[] falla) {
+        double acumulado = 0.0;
+        for (int i = 0; i < reglas.size(); i++) {
+            CompiledRule regla = reglas.get(i);
+            if (regla.comprobacion().cumple(documento)) {
+                acumulado += regla.peso();
+            } else {
+                falla[i] = true;
+            }
+        }
+        return pesoTotal == 0 ? 0 : acumulado / pesoTotal;
+    }
+
+    private ScenarioQuality evaluarEscenario(GherkinDocument documento, GherkinScenario escenario, boolean[] falla) {
+        double acumulado = 0.0;
+        List<String> falladas = new ArrayList<>(0);
+        for (int i = 0; i < reglas.size(); i++) {
+            CompiledRule regla = reglas.get(i);
+            if (regla.comprobacion().cumple(documento, escenario)) {
+                acumulado += regla.peso();
+            } else {
+                falla[i] = true;
+                falladas.add(regla.id());
+            }
+        }
+        return new ScenarioQuality(escenario.nombre(), escenario.linea(), escenario.outline(),
+                escenario.outline() ? escenario.filasEjemplos() : 1,
+                pesoTotal == 0 ? 0 : acumulado / pesoTotal, List.copyOf(falladas));
+    }
+
+    /**
+     * Devuelve una copia con las mismas reglas asociada a otra fecha de modificación, usada para no
+     * reintentar la carga de una configuración inválida.
+     */
+    CompiledRuleSet conModificacion(long nuevaModificacion) {
+        return new CompiledRuleSet(reglas, huella, nuevaModificacion);
+    }
+
+    int cantidad() {
+        return reglas.size();
+    }
+
+    String huella() {
+        return huella;
+    }
+
+    long modificacion() {
+        return modificacion;
+    }
+
+    /**
+     * Construye la comprobación de una regla a partir de su tipo, o de su id si es una regla predefinida.
+     */
+    private static QualityCheck comprobacion(QualityRule regla, Map<String, QualityCheckFactory> fabricas) {
+        if (regla.getTipo() == null || regla.getTipo().isBlank()) {
+            QualityCheck predefinida = BuiltinQualityChecks.porId(regla.getId());
+            if (predefinida == null) {
+                throw new InvalidConfigurationException("La regla " + regla.getId() + " no es predefinida y no declara tipo");
+            }
+            return predefinida;
+        }
+        QualityCheckFactory fabrica = fabricas.get(regla.getTipo());
+        if (fabrica == null) {
+            throw new InvalidConfigurationException("Tipo de regla desconocido en " + regla.getId() + ": "
+                    + regla.getTipo() + ". Disponibles: " + fabricas.keySet());
+        }
+        try {
+            return fabrica.crear(regla.getParametros());
+        } catch (InvalidConfigurationException e) {
+            throw new InvalidConfigurationException("Regla " + regla.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Construye el mensaje que explica el motivo y la buena práctica asociada a una regla.
+     *
+     * @param regla regla evaluada.
+     * @return texto descriptivo que se expone en sugerencias y detalle de reglas.
+     */
+    private static String construirMotivo(QualityRule regla) {
+        return regla.getId() + " - " + MOTIVOS_REGLAS.getOrDefault(regla.getId(), regla.getDescripcion());
+    }
+}
@@ -1,141 +1,275 @@
 package com.example.webtestingia.quality;
 
+import com.example.webtestingia.gherkin.GherkinDocument;
+import com.example.webtestingia.gherkin.GherkinTokenizer;
 import com.example.webtestingia.model.QualityResult;
 import com.example.webtestingia.model.QualityRule;
-import com.example.webtestingia.model.QualityRuleOutcome;
 import com.example.webtestingia.model.exception.InvalidConfigurationException;
 import com.example.webtestingia.model.exception.ParsingException;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Ejecuta el análisis de calidad sobre escenarios Gherkin a partir de las reglas activas.
+ * Las reglas se compilan en un {@link CompiledRuleSet} inmutable publicado de forma segura, por lo que
+ * la evaluación no requiere bloqueos y puede ejecutarse en paralelo desde cualquier hilo.
+ * Un hilo en segundo plano revisa periódicamente el archivo de reglas y, si cambió, compila el nuevo conjunto
+ * y lo reemplaza de una sola vez: los análisis en curso terminan con el anterior y ninguno espera la recarga.
+ * Cada regla usa un tipo predefinido ({@code regex}, {@code pasos}, {@code keywords}, {@code java}) o uno
+ * aportado por un bean {@link QualityCheckFactory}.
  */
 @Component
 public class QualityAnalyzer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(QualityAnalyzer.class);
     private static final String CONFIG_PATH = "config/quality-rules.yml";
-    private static final Map<String, String> MOTIVOS_REGLAS = Map.of(
-            "R1", "Asegura que el caso incluya al menos una validación observable (Then) para confirmar resultados; es buena práctica de QA porque evita flujos sin aserciones.",
-            "R2", "Un nombre descriptivo comunica claramente el objetivo del escenario y facilita el mantenimiento; buena práctica de QA para identificar cobertura rápidamente.",
-            "R3", "Limitar a 20 pasos mantiene los escenarios legibles y estables; buena práctica de QA para reducir flakiness y tiempos de ejecución.",
-            "R4", "Requiere validaciones Then para capturar comportamientos esperados; buena práctica de QA para detectar regresiones visibles.",
-            "R5", "El uso coherente de Given/When/Then mantiene la narrativa Gherkin y la comprensibilidad; buena práctica de QA para equipos multidisciplinarios."
-    );
 
-    private List<QualityRule> reglasActivas;
+    private final QualityResultCache cache;
+    private final Path archivoReglas;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, QualityCheckFactory> fabricas = new LinkedHashMap<>();
+    private final ScheduledExecutorService revisor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "quality-rules");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private volatile CompiledRuleSet reglas;
 
     /**
-     * Analiza un caso de prueba en formato Gherkin aplicando las reglas activas.
+     * Constructor con el tamaño de la caché de resultados y el origen de las reglas.
      *
-     * @param contenido texto del caso.
-     * @return resultado con puntaje y sugerencias.
+     * @param capacidadCache  número máximo de resultados de calidad a conservar en memoria.
+     * @param rutaReglas      archivo de reglas en disco; vacío para usar {@code config/quality-rules.yml} del classpath.
+     * @param revisionMs      intervalo en milisegundos entre revisiones del archivo de reglas.
+     * @param fabricasExtra   tipos de regla adicionales registrados como beans.
+     * @param eventPublisher  publicador de {@link QualityRulesChangedEvent} al recargar las reglas.
      */
-    public synchronized QualityResult analizarCaso(String contenido) {
-        if (reglasActivas == null) {
-            cargarReglas();
+    public QualityAnalyzer(@Value("${quality.cache.max-entries:10000}") int capacidadCache,
+                           @Value("${quality.rules.path:}") String rutaReglas,
+                           @Value("${quality.rules.revision-ms:5000}") long revisionMs,
+                           List<QualityCheckFactory> fabricasExtra,
+                           ApplicationEventPublisher eventPublisher) {
+        this.cache = new QualityResultCache(capacidadCache);
+        this.eventPublisher = eventPublisher;
+        this.archivoReglas = rutaReglas == null || rutaReglas.isBlank() ? null : Paths.get(rutaReglas);
+        for (QualityCheckFactory fabrica : BuiltinQualityChecks.fabricas()) {
+            fabricas.put(fabrica.tipo(), fabrica);
         }
-        QualityResult result = new QualityResult();
-        List<QualityRuleOutcome> cumplidas = new ArrayList<>();
-        List<QualityRuleOutcome> falladas = new ArrayList<>();
-        List<String> sugerencias = new ArrayList<>();
-        Map<String, String> detalleReglas = new HashMap<>();
-        double pesoTotal = reglasActivas.stream().mapToDouble(QualityRule::getPeso).sum();
-        double acumulado = 0.0;
-
-        for (QualityRule regla : reglasActivas) {
-            boolean cumple = evaluarRegla(regla, contenido);
-            String motivo = construirMotivo(regla);
-            if (cumple) {
-                acumulado += regla.getPeso();
-                cumplidas.add(new QualityRuleOutcome(regla.getId(), motivo));
-                detalleReglas.put(regla.getId(), motivo);
-            } else {
-                falladas.add(new QualityRuleOutcome(regla.getId(), motivo));
-                sugerencias.add(motivo);
-                detalleReglas.put(regla.getId(), motivo);
+        for (QualityCheckFactory fabrica : fabricasExtra) {
+            if (fabricas.putIfAbsent(fabrica.tipo(), fabrica) != null) {
+                throw new InvalidConfigurationException("Tipo de regla de calidad duplicado: " + fabrica.tipo());
             }
         }
-        result.setScore(pesoTotal == 0 ? 0 : acumulado / pesoTotal);
-        result.setPassedRules(cumplidas);
-        result.setFailedRules(falladas);
-        result.setSuggestions(sugerencias);
-        result.setRuleDetails(detalleReglas);
-        return result;
+        long intervalo = Math.max(100, revisionMs);
+        revisor.scheduleWithFixedDelay(this::revisarReglas, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene la revisión del archivo de reglas al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        revisor.shutdownNow();
     }
 
     /**
-     * Evalúa una regla específica contra el contenido Gherkin recibido.
+     * Analiza un caso de prueba en formato Gherkin aplicando las reglas activas.
+     * Los resultados se reutilizan mientras el contenido y el conjunto de reglas no cambien; el objeto
+     * devuelto puede estar compartido y no debe modificarse.
      *
-     * @param regla     regla de calidad configurada.
-     * @param contenido texto completo del escenario.
-     * @return true si cumple la condición de la regla, false en caso contrario.
+     * @param contenido texto del caso.
+     * @return resultado con puntaje y sugerencias.
      */
-    private boolean evaluarRegla(QualityRule regla, String contenido) {
-        String lower = contenido.toLowerCase();
-        return switch (regla.getId()) {
-            case "R1", "R4" -> lower.contains("then");
-            case "R2" -> lower.contains("scenario") && contenido.lines().findFirst().orElse("").length() > 15;
-            case "R3" -> contenido.lines().filter(l -> l.strip().matches("^(given|when|then|and|but).*$") ).count() <= 20;
-            case "R5" -> lower.contains("given") && lower.contains("when") && lower.contains("then");
-            default -> true;
-        };
+    public QualityResult analizarCaso(String contenido) {
+        CompiledRuleSet actuales = obtenerReglas();
+        return cache.obtener(actuales.huella(), contenido, () -> actuales.evaluar(GherkinTokenizer.parse(contenido)));
     }
 
     /**
-     * Construye el mensaje que explica el motivo y la buena práctica asociada a una regla.
+     * Analiza un caso del que ya se dispone del documento tokenizado, evitando volver a recorrer el texto.
      *
-     * @param regla regla evaluada.
-     * @return texto descriptivo que se expone en sugerencias y detalle de reglas.
+     * @param contenido texto del caso, usado como clave de la caché.
+     * @param documento modelo producido por {@link GherkinTokenizer} a partir del mismo contenido.
+     * @return resultado con puntaje y sugerencias.
      */
-    private String construirMotivo(QualityRule regla) {
-        return regla.getId() + " - " + MOTIVOS_REGLAS.getOrDefault(regla.getId(), regla.getDescripcion());
+    public QualityResult analizarCaso(String contenido, GherkinDocument documento) {
+        CompiledRuleSet actuales = obtenerReglas();
+        return cache.obtener(actuales.huella(), contenido, () -> actuales.evaluar(documento));
     }
 
-    private void cargarReglas() {
-        try (InputStream is = new ClassPathResource(CONFIG_PATH).getInputStream()) {
+    /**
+     * Resultado ya calculado para el contenido con las reglas vigentes, sin analizarlo si no está.
+     *
+     * @param contenido texto del caso.
+     * @return resultado en caché, o null.
+     */
+    public QualityResult resultadoEnCache(String contenido) {
+        return cache.buscar(obtenerReglas().huella(), contenido);
+    }
+
+    /**
+     * Huella del conjunto de reglas vigente; cambia cuando se recarga quality-rules.yml con otro contenido.
+     *
+     * @return huella de las reglas.
+     */
+    public String huellaReglas() {
+        return obtenerReglas().huella();
+    }
+
+    /**
+     * Carga y compila quality-rules.yml si aún no se hizo, para que el primer análisis no pague la carga.
+     */
+    public void precargarReglas() {
+        obtenerReglas();
+    }
+
+    /**
+     * Expone los contadores de la caché de resultados de calidad.
+     *
+     * @return estadísticas de aciertos, fallos y desalojos.
+     */
+    public Map<String, Object> estadisticasCache() {
+        return cache.estadisticas();
+    }
+
+    private CompiledRuleSet obtenerReglas() {
+        CompiledRuleSet actuales = reglas;
+        if (actuales == null) {
+            synchronized (this) {
+                if (reglas == null) {
+                    reglas = cargarReglas(leerConfiguracion(), ultimaModificacionReglas());
+                }
+                return reglas;
+            }
+        }
+        return actuales;
+    }
+
+    /**
+     * Recarga las reglas si el archivo cambió desde la última carga. Si sólo cambió la fecha y el contenido es
+     * el mismo se conserva el conjunto vigente y su caché; si el nuevo contenido es inválido se registra el
+     * error, se mantienen las reglas anteriores y no se reintenta hasta la siguiente modificación.
+     */
+    private void revisarReglas() {
+        CompiledRuleSet actuales = reglas;
+        if (actuales == null) {
+            return;
+        }
+        long modificacion = ultimaModificacionReglas();
+        if (modificacion == actuales.modificacion()) {
+            return;
+        }
+        try {
+            byte[] bytes = leerConfiguracion();
+            if (QualityResultCache.hash(bytes).equals(actuales.huella())) {
+                reglas = actuales.conModificacion(modificacion);
+                return;
+            }
+            LOGGER.info("Se detectaron cambios en {}; se recargan las reglas de calidad", origen());
+            reglas = cargarReglas(bytes, modificacion);
+            cache.invalidar();
+            eventPublisher.publishEvent(new QualityRulesChangedEvent(reglas.huella()));
+        } catch (InvalidConfigurationException | ParsingException e) {
+            reglas = actuales.conModificacion(modificacion);
+            LOGGER.error("{} inválido; se mantienen las reglas anteriores", origen(), e);
+        } catch (RuntimeException e) {
+            LOGGER.error("No se pudo revisar {}", origen(), e);
+        }
+    }
+
+    private String origen() {
+        return archivoReglas == null ? CONFIG_PATH : archivoReglas.toString();
+    }
+
+    private long ultimaModificacionReglas() {
+        try {
+            if (archivoReglas != null) {
+                return Files.getLastModifiedTime(archivoReglas).toMillis();
+            }
+            return new ClassPathResource(CONFIG_PATH).lastModified();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private byte[] leerConfiguracion() {
+        try (InputStream raw = archivoReglas != null
+                ? Files.newInputStream(archivoReglas)
+                : new ClassPathResource(CONFIG_PATH).getInputStream()) {
+            return raw.readAllBytes();
+        } catch (IOException e) {
+            throw new ParsingException("No se pudo leer " + origen(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompiledRuleSet cargarReglas(byte[] bytes, long modificacion) {
+        try (InputStream is = new ByteArrayInputStream(bytes)) {
             Yaml yaml = new Yaml();
             Map<String, Object> data = yaml.load(is);
-            Map<String, Object> quality = (Map<String, Object>) data.get("quality");
-            List<Map<String, Object>> reglas = (List<Map<String, Object>>) quality.get("reglas");
-            this.reglasActivas = new ArrayList<>();
+            Map<String, Object> quality = data == null ? null : (Map<String, Object>) data.get("quality");
+            if (quality == null || !(quality.get("reglas") instanceof List<?>)) {
+                throw new InvalidConfigurationException("Falta la lista quality.reglas en " + origen());
+            }
+            List<Map<String, Object>> reglasConfig = (List<Map<String, Object>>) quality.get("reglas");
+            List<QualityRule> activas = new ArrayList<>();
             Set<String> ids = new HashSet<>();
             double pesoTotal = 0.0;
-            for (Map<String, Object> reglaMap : reglas) {
+            for (Map<String, Object> reglaMap : reglasConfig) {
                 QualityRule rule = new QualityRule();
                 rule.setId(String.valueOf(reglaMap.get("id")));
                 rule.setNombre(String.valueOf(reglaMap.get("nombre")));
                 rule.setDescripcion(String.valueOf(reglaMap.get("descripcion")));
                 rule.setActivo(Boolean.TRUE.equals(reglaMap.get("activo")) || Boolean.parseBoolean(String.valueOf(reglaMap.get("activo"))));
                 rule.setPeso(Double.parseDouble(String.valueOf(reglaMap.get("peso"))));
+                rule.setTipo(reglaMap.get("tipo") == null ? null : String.valueOf(reglaMap.get("tipo")));
+                if (reglaMap.get("parametros") instanceof Map<?, ?> parametros) {
+                    rule.setParametros((Map<String, Object>) parametros);
+                }
                 if (rule.isActivo()) {
                     if (ids.contains(rule.getId())) {
                         throw new InvalidConfigurationException("ID de regla duplicado: " + rule.getId());
                     }
                     ids.add(rule.getId());
                     pesoTotal += rule.getPeso();
-                    this.reglasActivas.add(rule);
+                    activas.add(rule);
                 }
             }
             if (pesoTotal <= 0) {
                 throw new InvalidConfigurationException("Los pesos de reglas activas deben ser mayores a cero");
             }
-            LOGGER.info("{} reglas de calidad cargadas", this.reglasActivas.size());
+            CompiledRuleSet compiladas = CompiledRuleSet.compilar(activas, fabricas, QualityResultCache.hash(bytes), modificacion);
+            LOGGER.info("{} reglas de calidad cargadas", compiladas.cantidad());
+            return compiladas;
         } catch (IOException e) {
-            throw new ParsingException("No se pudo leer quality-rules.yml", e);
+            throw new ParsingException("No se pudo leer " + origen(), e);
+        } catch (YAMLException e) {
+            throw new ParsingException("YAML inválido en " + origen(), e);
+        } catch (NumberFormatException | ClassCastException e) {
+            throw new InvalidConfigurationException("Configuración de reglas inválida en " + origen() + ": " + e.getMessage());
         }
     }
 }
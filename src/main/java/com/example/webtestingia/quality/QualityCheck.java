@@ -0,0 +1,36 @@
+package com.example.webtestingia.quality;
+
+import com.example.webtestingia.gherkin.GherkinDocument;
+import com.example.webtestingia.gherkin.GherkinScenario;
+
+/**
+ * Comprobación de una regla de calidad sobre un documento ya tokenizado. Las implementaciones se evalúan en
+ * paralelo desde cualquier hilo, por lo que deben ser inmutables. Una regla con {@code tipo: java} indica en
+ * {@code parametros.clase} una implementación con constructor sin argumentos o que recibe
+ * {@code Map<String, Object>} con los parámetros de la regla.
+ * Cada escenario se evalúa por separado; por defecto sobre una vista del documento que sólo contiene ese
+ * escenario y el Background, y una comprobación puede redefinir {@link #cumple(GherkinDocument, GherkinScenario)}
+ * si juzga el escenario de otra forma.
+ */
+@FunctionalInterface
+public interface QualityCheck {
+
+    /**
+     * Indica si el documento cumple la regla.
+     *
+     * @param documento modelo del caso producido por el tokenizador.
+     * @return true si la cumple.
+     */
+    boolean cumple(GherkinDocument documento);
+
+    /**
+     * Indica si un escenario del documento cumple la regla.
+     *
+     * @param documento modelo del caso producido por el tokenizador.
+     * @param escenario escenario de {@code documento} a evaluar.
+     * @return true si lo cumple.
+     */
+    default boolean cumple(GherkinDocument documento, GherkinScenario escenario) {
+        return cumple(documento.soloEscenario(escenario));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.webtestingia.quality;
+
+import java.util.Map;
+
+/**
+ * Punto de extensión para nuevos tipos de regla. Cada bean de Spring que implemente esta interfaz agrega un
+ * {@code tipo} utilizable en quality-rules.yml, junto a los predefinidos {@code regex}, {@code pasos},
+ * {@code keywords} y {@code java}.
+ */
+public interface QualityCheckFactory {
+
+    /**
+     * Nombre del tipo tal como se escribe en {@code tipo:}.
+     *
+     * @return nombre del tipo.
+     */
+    String tipo();
+
+    /**
+     * Construye la comprobación de una regla; se invoca al cargar las reglas, no en cada evaluación, por lo que
+     * aquí deben compilarse expresiones y validarse parámetros.
+     *
+     * @param parametros valores de {@code parametros:} de la regla.
+     * @return comprobación inmutable.
+     * @throws com.example.webtestingia.model.exception.InvalidConfigurationException si los parámetros son inválidos.
+     */
+    QualityCheck crear(Map<String, Object> parametros);
+}
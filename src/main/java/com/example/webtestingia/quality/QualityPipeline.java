@@ -0,0 +1,153 @@
+package com.example.webtestingia.quality;
+
+import com.example.webtestingia.model.QualityResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Análisis de calidad diferido de los contenidos recién escritos. Las escrituras encolan un trabajo por clave
+ * (la ruta del caso) y siguen sin esperar; unos pocos hilos analizan en segundo plano, dejan el resultado en la
+ * caché del {@link QualityAnalyzer} y lo entregan a quien encoló. Si la misma clave se vuelve a encolar antes de
+ * que empiece su análisis, el trabajo pendiente pasa a usar el contenido más reciente y se analiza una sola vez.
+ * La cola es acotada: cuando está llena el trabajo se descarta sin analizar y quien encoló recibe null, de modo
+ * que el caso queda sin calidad y la analiza la siguiente lectura que la pida; la escritura nunca espera al análisis.
+ */
+@Component
+public class QualityPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QualityPipeline.class);
+
+    private final QualityAnalyzer qualityAnalyzer;
+    private final ThreadPoolExecutor ejecutor;
+    private final Map<String, Trabajo> pendientes = new ConcurrentHashMap<>();
+    private final Map<String, Trabajo> enCurso = new ConcurrentHashMap<>();
+    private final LongAdder encolados = new LongAdder();
+    private final LongAdder coalescidos = new LongAdder();
+    private final LongAdder completados = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    /**
+     * Contenido a analizar y destino del resultado.
+     */
+    private record Trabajo(String contenido, Consumer<QualityResult> alTerminar) {
+    }
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param qualityAnalyzer analizador cuya caché reciben los resultados.
+     * @param hilos           hilos de análisis en segundo plano.
+     * @param capacidad       trabajos en espera antes de descartar los nuevos.
+     */
+    public QualityPipeline(QualityAnalyzer qualityAnalyzer,
+                           @Value("${quality.pipeline.threads:2}") int hilos,
+                           @Value("${quality.pipeline.capacity:1000}") int capacidad) {
+        this.qualityAnalyzer = qualityAnalyzer;
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(Math.max(1, hilos), Math.max(1, hilos), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacidad)), tarea -> {
+                    Thread hilo = new Thread(tarea, "quality-pipeline-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    /**
+     * Detiene los hilos de análisis al apagar la aplicación; los trabajos pendientes se descartan.
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Encola el análisis de un contenido. Si ya hay un trabajo pendiente para la clave, lo reemplaza y no
+     * agrega otro. {@code alTerminar} recibe el resultado en un hilo del pipeline, y recibe null si el análisis
+     * falla; si la cola está llena recibe null en el llamador sin que se analice nada.
+     *
+     * @param clave      identificador del caso, normalmente su ruta absoluta.
+     * @param contenido  texto del caso a analizar.
+     * @param alTerminar receptor del resultado.
+     */
+    public void encolar(String clave, String contenido, Consumer<QualityResult> alTerminar) {
+        Trabajo trabajo = new Trabajo(contenido, alTerminar);
+        if (pendientes.put(clave, trabajo) != null) {
+            coalescidos.increment();
+            return;
+        }
+        try {
+            ejecutor.execute(() -> procesar(clave));
+            encolados.increment();
+        } catch (RejectedExecutionException e) {
+            descartados.increment();
+            Trabajo descartado = pendientes.remove(clave);
+            if (descartado != null) {
+                descartado.alTerminar().accept(null);
+            }
+        }
+    }
+
+    /**
+     * Indica si hay un análisis pendiente o en curso para la clave, es decir, si el último resultado
+     * entregado para ella puede no corresponder al contenido actual.
+     *
+     * @param clave identificador del caso.
+     * @return true si el análisis aún no terminó.
+     */
+    public boolean pendiente(String clave) {
+        return pendientes.containsKey(clave) || enCurso.containsKey(clave);
+    }
+
+    /**
+     * Contadores del pipeline.
+     *
+     * @return trabajos encolados, coalescidos, completados, fallidos y descartados por cola llena, más los
+     * pendientes y en curso.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", encolados.sum());
+        stats.put("coalesced", coalescidos.sum());
+        stats.put("completed", completados.sum());
+        stats.put("failed", fallidos.sum());
+        stats.put("dropped", descartados.sum());
+        stats.put("pending", pendientes.size());
+        stats.put("running", enCurso.size());
+        return stats;
+    }
+
+    private void procesar(String clave) {
+        // Se toma el contenido más reciente; una escritura posterior a este punto encola un trabajo nuevo.
+        Trabajo trabajo = pendientes.remove(clave);
+        if (trabajo == null) {
+            return;
+        }
+        enCurso.put(clave, trabajo);
+        try {
+            QualityResult resultado = qualityAnalyzer.analizarCaso(trabajo.contenido());
+            trabajo.alTerminar().accept(resultado);
+            completados.increment();
+        } catch (RuntimeException e) {
+            fallidos.increment();
+            LOGGER.warn("Falló el análisis de calidad diferido de {}", clave, e);
+            trabajo.alTerminar().accept(null);
+        } finally {
+            enCurso.remove(clave, trabajo);
+        }
+    }
+}
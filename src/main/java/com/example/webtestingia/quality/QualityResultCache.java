@@ -0,0 +1,192 @@
+package com.example.webtestingia.quality;
+
+import com.example.webtestingia.model.QualityResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caché LRU acotada de resultados de calidad, indexada por el hash SHA-256 del contenido y la huella
+ * del conjunto de reglas activo. Las entradas se reparten en segmentos independientes para que los
+ * hilos que analizan en paralelo no compitan por un único bloqueo. Los resultados almacenados se
+ * comparten entre llamadas y deben tratarse como de sólo lectura.
+ */
+public class QualityResultCache {
+
+    private static final int SEGMENTOS = 16;
+
+    private final int capacidad;
+    private final Segmento[] segmentos;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * Segmento LRU protegido por su propio monitor: un mapa en orden de acceso del que se desaloja la entrada
+     * menos usada al superar el máximo.
+     */
+    private final class Segmento {
+
+        private final int maximo;
+        private final LinkedHashMap<String, QualityResult> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segmento(int maximo) {
+            this.maximo = maximo;
+        }
+
+        QualityResult get(String clave) {
+            return entradas.get(clave);
+        }
+
+        void put(String clave, QualityResult resultado) {
+            entradas.put(clave, resultado);
+            if (entradas.size() > maximo) {
+                Iterator<String> masAntigua = entradas.keySet().iterator();
+                masAntigua.next();
+                masAntigua.remove();
+                desalojos.increment();
+            }
+        }
+
+        void clear() {
+            entradas.clear();
+        }
+
+        int size() {
+            return entradas.size();
+        }
+    }
+
+    /**
+     * Crea la caché con el número máximo de resultados a conservar.
+     *
+     * @param capacidad número máximo de entradas.
+     */
+    public QualityResultCache(int capacidad) {
+        this.capacidad = capacidad;
+        this.segmentos = new Segmento[SEGMENTOS];
+        int porSegmento = Math.max(1, (capacidad + SEGMENTOS - 1) / SEGMENTOS);
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(porSegmento);
+        }
+    }
+
+    /**
+     * Devuelve el resultado asociado a la huella de reglas y contenido, calculándolo si no está en caché.
+     * El cálculo se hace fuera del bloqueo del segmento.
+     *
+     * @param huellaReglas huella del conjunto de reglas activo.
+     * @param contenido    texto del caso.
+     * @param calculo      función que calcula el resultado ante un fallo de caché.
+     * @return resultado de calidad.
+     */
+    public QualityResult obtener(String huellaReglas, String contenido, Supplier<QualityResult> calculo) {
+        if (capacidad <= 0) {
+            fallos.increment();
+            return calculo.get();
+        }
+        String clave = huellaReglas + ":" + hash(contenido);
+        Segmento segmento = segmentos[(clave.hashCode() & 0x7fffffff) % SEGMENTOS];
+        QualityResult existente;
+        synchronized (segmento) {
+            existente = segmento.get(clave);
+        }
+        if (existente != null) {
+            aciertos.increment();
+            return existente;
+        }
+        fallos.increment();
+        QualityResult calculado = calculo.get();
+        synchronized (segmento) {
+            segmento.put(clave, calculado);
+        }
+        return calculado;
+    }
+
+    /**
+     * Devuelve el resultado en caché sin calcularlo. Un acierto cuenta como tal; una ausencia no cuenta como fallo.
+     *
+     * @param huellaReglas huella del conjunto de reglas activo.
+     * @param contenido    texto del caso.
+     * @return resultado, o null si no está en caché.
+     */
+    public QualityResult buscar(String huellaReglas, String contenido) {
+        if (capacidad <= 0) {
+            return null;
+        }
+        String clave = huellaReglas + ":" + hash(contenido);
+        Segmento segmento = segmentos[(clave.hashCode() & 0x7fffffff) % SEGMENTOS];
+        QualityResult existente;
+        synchronized (segmento) {
+            existente = segmento.get(clave);
+        }
+        if (existente != null) {
+            aciertos.increment();
+        }
+        return existente;
+    }
+
+    /**
+     * Elimina todas las entradas, por ejemplo cuando cambia la configuración de reglas.
+     */
+    public void invalidar() {
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                segmento.clear();
+            }
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Expone los contadores de uso de la caché.
+     *
+     * @return mapa con tamaño, capacidad, aciertos, fallos, desalojos e invalidaciones.
+     */
+    public Map<String, Object> estadisticas() {
+        int tamano = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                tamano += segmento.size();
+            }
+        }
+        long hits = aciertos.sum();
+        long misses = fallos.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", tamano);
+        stats.put("capacity", capacidad);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", desalojos.sum());
+        stats.put("invalidations", invalidaciones.sum());
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    /**
+     * Calcula el hash SHA-256 de un texto en Base64 URL-safe.
+     *
+     * @param texto texto a resumir.
+     * @return hash codificado.
+     */
+    static String hash(String texto) {
+        return hash(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.webtestingia.quality;
+
+/**
+ * Evento de aplicación publicado después de reemplazar el conjunto de reglas de calidad por uno con otro
+ * contenido. Los resultados calculados con las reglas anteriores dejan de ser válidos.
+ *
+ * @param huella huella del nuevo conjunto de reglas.
+ */
+public record QualityRulesChangedEvent(String huella) {
+}
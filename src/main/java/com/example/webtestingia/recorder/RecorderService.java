@@ -96,14 +96,14 @@ public class RecorderService {
         List<String> steps = closedSession.getSteps();
         String escenario = "Scenario: Recorded flow\n" + String.join("\n", steps);
         QualityResult quality = qualityAnalyzer.analizarCaso(escenario);
+        // El resultado puede venir de la caché del analizador: se redondea sin modificarlo.
         double roundedScore = java.math.BigDecimal.valueOf(quality.getScore())
                 .setScale(2, java.math.RoundingMode.HALF_UP)
                 .doubleValue();
-        quality.setScore(roundedScore);
         LOGGER.info("Sesión {} finalizada con {} pasos", sessionId, steps.size());
 
         Map<String, Object> qualityPayload = Map.of(
-                "score", quality.getScore(),
+                "score", roundedScore,
                 "passedRules", quality.getPassedRules(),
                 "failedRules", quality.getFailedRules(),
                 "suggestions", quality.getSuggestions(),
@@ -0,0 +1,21 @@
+package com.example.webtestingia.service;
+
+/**
+ * Evento de aplicación publicado cuando un caso .feature se crea, modifica o elimina, tanto por la API
+ * como por un cambio externo detectado en disco. Se publica de forma síncrona después de aplicar el cambio.
+ *
+ * @param proyecto nombre del proyecto.
+ * @param ruta     ruta relativa del caso dentro del proyecto.
+ * @param tipo     tipo de cambio.
+ */
+public record CaseChangedEvent(String proyecto, String ruta, Tipo tipo) {
+
+    /**
+     * Tipos de cambio sobre un caso.
+     */
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        ELIMINADO
+    }
+}
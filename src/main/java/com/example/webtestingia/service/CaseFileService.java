@@ -1,26 +1,59 @@
 package com.example.webtestingia.service;
 
+import com.example.webtestingia.gherkin.GherkinDocument;
+import com.example.webtestingia.gherkin.GherkinScenario;
+import com.example.webtestingia.gherkin.GherkinTokenizer;
+import com.example.webtestingia.gherkin.TagExpression;
+import com.example.webtestingia.model.BatchResult;
+import com.example.webtestingia.model.CaseEdit;
+import com.example.webtestingia.model.CaseOperation;
+import com.example.webtestingia.model.CaseOperationResult;
+import com.example.webtestingia.model.FieldSelection;
+import com.example.webtestingia.model.ProjectQuality;
 import com.example.webtestingia.model.QualityResult;
 import com.example.webtestingia.model.TestCaseDetail;
+import com.example.webtestingia.model.TestCasePage;
 import com.example.webtestingia.model.TestCaseSummary;
 import com.example.webtestingia.model.exception.FileAccessException;
+import com.example.webtestingia.model.exception.PreconditionFailedException;
 import com.example.webtestingia.model.exception.ProjectNotFoundException;
 import com.example.webtestingia.quality.QualityAnalyzer;
+import com.example.webtestingia.quality.QualityPipeline;
+import com.example.webtestingia.quality.QualityRulesChangedEvent;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
 
 /**
  * Servicio encargado de manipular archivos .feature dentro de los proyectos.
@@ -29,41 +62,172 @@ import java.util.stream.Collectors;
 public class CaseFileService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CaseFileService.class);
-    private static final Pattern ESCENARIO_PATTERN = Pattern.compile("Scenario(?: Outline)?:\\s*(.+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern TAG_PATTERN = Pattern.compile("^@(.+)$");
+    private static final int MAX_LIMITE_PAGINA = 1000;
+    private static final int BUFFER_CABECERA = 4096;
+    private static final String MARCA_CALIDAD_OBSOLETA = "-obsoleta";
 
     private final Path featuresRoot = Paths.get("src/test/resources/features");
     private final QualityAnalyzer qualityAnalyzer;
+    private final QualityPipeline qualityPipeline;
+    private final FileSystemWatcher fileSystemWatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PathLocks pathLocks;
+    private final RequestCoalescer requestCoalescer;
+    private final Map<String, ProjectCaseIndex> indices = new ConcurrentHashMap<>();
+    private final ExecutorService scanExecutor;
+    private final int maxOperacionesLote;
 
     /**
      * Constructor con dependencias necesarias.
      *
-     * @param qualityAnalyzer analizador de calidad inyectado.
+     * @param qualityAnalyzer   analizador de calidad inyectado.
+     * @param qualityPipeline   análisis diferido de la calidad de los casos escritos.
+     * @param fileSystemWatcher observador de cambios externos sobre los archivos .feature.
+     * @param eventPublisher    publicador de {@link CaseChangedEvent} y {@link CaseQualityEvent} para otros índices.
+     * @param pathLocks         bloqueos por archivo y escritura atómica compartidos con los demás servicios.
+     * @param requestCoalescer  coalescencia de listados idénticos concurrentes y de la construcción de cada índice.
+     * @param concurrencia      máximo de archivos leídos, escritos y analizados en paralelo.
+     * @param maxOperacionesLote máximo de operaciones aceptadas en un lote.
      */
-    public CaseFileService(QualityAnalyzer qualityAnalyzer) {
+    public CaseFileService(QualityAnalyzer qualityAnalyzer,
+                           QualityPipeline qualityPipeline,
+                           FileSystemWatcher fileSystemWatcher,
+                           ApplicationEventPublisher eventPublisher,
+                           PathLocks pathLocks,
+                           RequestCoalescer requestCoalescer,
+                           @Value("${casos.scan.concurrencia:8}") int concurrencia,
+                           @Value("${casos.lote.max-operaciones:10000}") int maxOperacionesLote) {
         this.qualityAnalyzer = qualityAnalyzer;
+        this.qualityPipeline = qualityPipeline;
+        this.fileSystemWatcher = fileSystemWatcher;
+        this.eventPublisher = eventPublisher;
+        this.pathLocks = pathLocks;
+        this.requestCoalescer = requestCoalescer;
+        this.maxOperacionesLote = maxOperacionesLote;
+        AtomicInteger hilos = new AtomicInteger();
+        this.scanExecutor = Executors.newFixedThreadPool(Math.max(1, concurrencia), tarea -> {
+            Thread hilo = new Thread(tarea, "case-scan-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
     }
 
     /**
-     * Lista los casos de un proyecto de forma recursiva, retornando la calidad calculada por caso.
+     * Libera los hilos de lectura de casos al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        scanExecutor.shutdownNow();
+    }
+
+    /**
+     * Descarta la calidad memorizada en los índices cuando se recargan las reglas; cada proyecto la recalcula
+     * en su siguiente consulta.
+     *
+     * @param evento recarga publicada por {@link QualityAnalyzer}.
+     */
+    @EventListener
+    public void alCambiarReglas(QualityRulesChangedEvent evento) {
+        indices.values().forEach(ProjectCaseIndex::descartarCalidad);
+        LOGGER.info("Reglas de calidad {}: se recalculará la calidad de {} proyectos", evento.huella(), indices.size());
+    }
+
+    /**
+     * Lista los casos de un proyecto, retornando la calidad calculada por caso.
+     * Los resúmenes se sirven desde el índice en memoria del proyecto, que se construye en la primera
+     * consulta y luego se mantiene con los cambios detectados en disco y con las escrituras de este servicio.
      *
      * @param proyecto nombre del proyecto.
-     * @return lista de casos.
+     * @return lista de casos ordenada por ruta.
      */
     public List<TestCaseSummary> listarCasos(String proyecto) {
-        Path projectPath = validarProyecto(proyecto);
-        try {
-            return Files.walk(projectPath)
-                    .filter(path -> path.toString().endsWith(".feature"))
-                    .map(path -> buildSummary(projectPath, path))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new FileAccessException("Error al recorrer los casos del proyecto", e);
+        return listarCasos(proyecto, FieldSelection.de(TestCaseSummary.CAMPOS_POR_DEFECTO));
+    }
+
+    /**
+     * Lista los casos de un proyecto incluyendo sólo los campos solicitados. Si no se pide la calidad,
+     * el listado se responde desde el índice sin leer ni analizar archivos.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param campos   campos a incluir en cada resumen.
+     * @return lista de casos ordenada por ruta.
+     */
+    public List<TestCaseSummary> listarCasos(String proyecto, FieldSelection campos) {
+        return listarCasos(proyecto, campos, null);
+    }
+
+    /**
+     * Lista los casos de un proyecto cuyos tags cumplen una expresión, incluyendo sólo los campos solicitados.
+     * Las peticiones idénticas que llegan mientras otra se calcula comparten su resultado.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param campos   campos a incluir en cada resumen.
+     * @param tags     expresión de tags que deben cumplir los casos, o null para todos.
+     * @return lista de casos ordenada por ruta.
+     */
+    public List<TestCaseSummary> listarCasos(String proyecto, FieldSelection campos, TagExpression tags) {
+        validarProyecto(proyecto);
+        return requestCoalescer.compartir("listarCasos", proyecto + "|" + campos.clave() + "|" + tags,
+                () -> obtenerIndice(proyecto).listar(campos, tags));
+    }
+
+    /**
+     * Selecciona los casos de un proyecto cuyos tags (todos los del archivo) cumplen una expresión.
+     * La expresión se resuelve sobre mapas de bits por tag mantenidos en el índice del proyecto.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param tags     expresión de tags, por ejemplo {@code @smoke and not @slow}.
+     * @return rutas relativas de los casos seleccionados, ordenadas.
+     */
+    public List<String> seleccionarPorTags(String proyecto, TagExpression tags) {
+        validarProyecto(proyecto);
+        return obtenerIndice(proyecto).seleccionarRutas(tags);
+    }
+
+    /**
+     * Lista una página de casos ordenada por ruta. El cursor codifica la última ruta entregada, por lo que
+     * la paginación es estable aunque se creen o eliminen casos entre una página y otra. Las peticiones
+     * idénticas concurrentes comparten una única consulta al índice.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param cursor   cursor devuelto por la página anterior, o null para la primera página.
+     * @param limite   cantidad máxima de casos por página.
+     * @param campos   campos a incluir en cada resumen.
+     * @param tags     expresión de tags que deben cumplir los casos, o null para todos.
+     * @return página de casos con el cursor de la siguiente.
+     */
+    public TestCasePage listarPagina(String proyecto, String cursor, int limite, FieldSelection campos, TagExpression tags) {
+        if (limite < 1 || limite > MAX_LIMITE_PAGINA) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMITE_PAGINA);
         }
+        validarProyecto(proyecto);
+        String desde = decodificarCursor(cursor);
+        return requestCoalescer.compartir("listarPagina",
+                proyecto + "|" + desde + "|" + limite + "|" + campos.clave() + "|" + tags, () -> {
+                    List<TestCaseSummary> items = obtenerIndice(proyecto).pagina(desde, limite, campos, tags);
+                    String siguiente = items.size() < limite ? null : codificarCursor(items.get(items.size() - 1).getRuta());
+                    return new TestCasePage(items, siguiente);
+                });
     }
 
     /**
-     * Devuelve el contenido completo de un archivo .feature y su análisis de calidad.
+     * Recorre los casos de un proyecto de forma perezosa para escribirlos a medida que se producen.
+     * El proyecto se valida y el índice se construye al invocar el método; el stream debe cerrarse.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param campos   campos a incluir en cada resumen.
+     * @param tags     expresión de tags que deben cumplir los casos, o null para todos.
+     * @return stream de resúmenes ordenado por ruta.
+     */
+    public Stream<TestCaseSummary> recorrerCasos(String proyecto, FieldSelection campos, TagExpression tags) {
+        validarProyecto(proyecto);
+        return obtenerIndice(proyecto).recorrer(campos, tags);
+    }
+
+    /**
+     * Devuelve el contenido completo de un archivo .feature y su análisis de calidad. Si el caso se acaba de
+     * escribir y su análisis diferido no terminó, se devuelve la calidad del contenido anterior con
+     * {@code calidadObsoleta} en lugar de esperar.
      *
      * @param proyecto nombre del proyecto.
      * @param ruta     ruta relativa del archivo dentro del proyecto.
@@ -73,18 +237,94 @@ public class CaseFileService {
         Path projectPath = validarProyecto(proyecto);
         Path casePath = normalizarRuta(projectPath, ruta);
         try {
-            String contenido = Files.readString(casePath, StandardCharsets.UTF_8);
+            String contenido = leer(casePath);
+            GherkinDocument documento = GherkinTokenizer.parse(contenido);
             TestCaseDetail detail = new TestCaseDetail();
             detail.setRuta(projectPath.relativize(casePath).toString());
             detail.setContenido(contenido);
-            detail.setEscenarios(extraerEscenarios(contenido));
-            detail.setCalidad(qualityAnalyzer.analizarCaso(contenido));
+            detail.setEscenarios(documento.nombresEscenarios());
+            QualityResult calidad = qualityAnalyzer.resultadoEnCache(contenido);
+            if (calidad == null) {
+                calidad = calidadPendiente(proyecto, detail.getRuta(), casePath);
+                detail.setCalidadObsoleta(calidad != null);
+            }
+            detail.setCalidad(calidad != null ? calidad : qualityAnalyzer.analizarCaso(contenido, documento));
             return detail;
         } catch (IOException e) {
             throw new FileAccessException("No se pudo leer el caso solicitado", e);
         }
     }
 
+    /**
+     * Calcula el ETag fuerte de un caso a partir de la fecha de modificación (en nanosegundos) y el tamaño
+     * del archivo, más la huella de las reglas de calidad porque el detalle incluye el análisis. Mientras el
+     * detalle se serviría con la calidad obsoleta del contenido anterior, el ETag lleva además la marca
+     * {@value #MARCA_CALIDAD_OBSOLETA}, de modo que al terminar el análisis diferido cambia y los clientes
+     * reciben la calidad nueva en lugar de un 304. No lee el contenido ni ejecuta el analizador.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param ruta     ruta relativa del archivo dentro del proyecto.
+     * @return ETag entre comillas.
+     */
+    public String etagCaso(String proyecto, String ruta) {
+        Path projectPath = validarProyecto(proyecto);
+        Path casePath = normalizarRuta(projectPath, ruta);
+        String etag = etagContenido(casePath, ruta);
+        if (calidadPendiente(proyecto, projectPath.relativize(casePath).toString(), casePath) == null) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + MARCA_CALIDAD_OBSOLETA + "\"";
+    }
+
+    /**
+     * ETag del contenido de un caso, sin la marca de calidad obsoleta; es el que se compara con If-Match.
+     */
+    private String etagContenido(Path casePath, String ruta) {
+        try {
+            return etag(Files.readAttributes(casePath, BasicFileAttributes.class));
+        } catch (NoSuchFileException e) {
+            throw new ProjectNotFoundException("El archivo .feature no existe: " + ruta);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer el caso solicitado", e);
+        }
+    }
+
+    /**
+     * Construye el índice del proyecto si aún no existe, de modo que los cambios hechos en disco fuera de la
+     * API empiecen a observarse y a publicarse como {@link CaseChangedEvent}.
+     *
+     * @param proyecto nombre del proyecto.
+     */
+    public void observarCambios(String proyecto) {
+        validarProyecto(proyecto);
+        obtenerIndice(proyecto);
+    }
+
+    /**
+     * Versión de los casos de un proyecto según su índice en memoria; cambia con cada alta, modificación
+     * o baja de un caso. Sirve para derivar ETags de recursos que agregan los casos del proyecto.
+     *
+     * @param proyecto nombre del proyecto.
+     * @return identificador opaco de la versión.
+     */
+    public String versionCasos(String proyecto) {
+        validarProyecto(proyecto);
+        return obtenerIndice(proyecto).huella();
+    }
+
+    /**
+     * Agregados de calidad de un proyecto (cantidad de casos, promedio, mínimo, máximo, fallos por regla e
+     * histograma), mantenidos por el índice a medida que cambian los casos. Sólo se analizan los casos
+     * nuevos o modificados desde la consulta anterior.
+     *
+     * @param proyecto nombre del proyecto.
+     * @return agregados de calidad.
+     */
+    public ProjectQuality calidadProyecto(String proyecto) {
+        validarProyecto(proyecto);
+        return obtenerIndice(proyecto).resumenCalidad();
+    }
+
     /**
      * Crea un nuevo archivo .feature o agrega un escenario según la ruta indicada.
      *
@@ -95,13 +335,22 @@ public class CaseFileService {
     public void crearCaso(String proyecto, String ruta, String contenido) {
         Path projectPath = validarProyecto(proyecto);
         Path casePath = normalizarRuta(projectPath, ruta);
+        Lock escritura = pathLocks.para(casePath).writeLock();
+        CaseChangedEvent.Tipo cambio;
+        CaseQualityEvent calificacion;
+        escritura.lock();
         try {
-            Files.createDirectories(casePath.getParent());
-            Files.writeString(casePath, contenido, StandardCharsets.UTF_8);
+            cambio = Files.exists(casePath) ? CaseChangedEvent.Tipo.ACTUALIZADO : CaseChangedEvent.Tipo.CREADO;
+            pathLocks.escribirAtomico(casePath, contenido);
             LOGGER.info("Caso creado en {}", casePath);
+            calificacion = indexarEscritura(proyecto, projectPath, casePath, contenido);
         } catch (IOException e) {
             throw new FileAccessException("No se pudo crear el caso", e);
+        } finally {
+            escritura.unlock();
         }
+        publicarCalidad(calificacion);
+        publicarCambio(proyecto, projectPath, casePath, cambio);
     }
 
     /**
@@ -112,17 +361,79 @@ public class CaseFileService {
      * @param contenido nuevo contenido.
      */
     public void actualizarCaso(String proyecto, String ruta, String contenido) {
+        actualizarCaso(proyecto, ruta, contenido, null);
+    }
+
+    /**
+     * Actualiza un archivo .feature existente sólo si su versión coincide con la indicada en If-Match.
+     *
+     * @param proyecto  nombre del proyecto.
+     * @param ruta      ruta del archivo dentro del proyecto.
+     * @param contenido nuevo contenido.
+     * @param ifMatch   valor de la cabecera If-Match ({@code *} o lista de ETags), o null para no comprobar.
+     * @return ETag del caso tras la escritura.
+     */
+    public String actualizarCaso(String proyecto, String ruta, String contenido, String ifMatch) {
         Path projectPath = validarProyecto(proyecto);
         Path casePath = normalizarRuta(projectPath, ruta);
-        if (!Files.exists(casePath)) {
-            throw new ProjectNotFoundException("El archivo .feature no existe: " + ruta);
-        }
+        Lock escritura = pathLocks.para(casePath).writeLock();
+        String etag;
+        CaseQualityEvent calificacion;
+        escritura.lock();
         try {
-            Files.writeString(casePath, contenido, StandardCharsets.UTF_8);
+            verificarVersion(ruta, casePath, ifMatch);
+            pathLocks.escribirAtomico(casePath, contenido);
             LOGGER.info("Caso actualizado en {}", casePath);
+            calificacion = indexarEscritura(proyecto, projectPath, casePath, contenido);
+            etag = etagCaso(proyecto, ruta);
         } catch (IOException e) {
             throw new FileAccessException("No se pudo actualizar el caso", e);
+        } finally {
+            escritura.unlock();
+        }
+        publicarCalidad(calificacion);
+        publicarCambio(proyecto, projectPath, casePath, CaseChangedEvent.Tipo.ACTUALIZADO);
+        return etag;
+    }
+
+    /**
+     * Aplica ediciones parciales a un archivo .feature sin que el cliente reenvíe el contenido completo.
+     * Todas las ediciones se expresan sobre la numeración de líneas actual del archivo, no pueden solaparse
+     * y se aplican de abajo hacia arriba en memoria; el archivo se escribe una sola vez. El índice recibe el
+     * documento ya tokenizado del contenido resultante, sin volver a leer el archivo.
+     *
+     * @param proyecto   nombre del proyecto.
+     * @param ruta       ruta del archivo dentro del proyecto.
+     * @param ediciones  rangos de líneas o escenarios a reemplazar.
+     * @param ifMatch    valor de la cabecera If-Match, o null para no comprobar.
+     * @return ETag del caso tras la escritura.
+     */
+    public String editarCaso(String proyecto, String ruta, List<CaseEdit> ediciones, String ifMatch) {
+        Path projectPath = validarProyecto(proyecto);
+        Path casePath = normalizarRuta(projectPath, ruta);
+        if (ediciones == null || ediciones.isEmpty()) {
+            throw new IllegalArgumentException("No se indicaron ediciones");
         }
+        Lock escritura = pathLocks.para(casePath).writeLock();
+        String etag;
+        CaseQualityEvent calificacion;
+        escritura.lock();
+        try {
+            verificarVersion(ruta, casePath, ifMatch);
+            String original = Files.readString(casePath, StandardCharsets.UTF_8);
+            String contenido = aplicarEdiciones(original, ediciones);
+            pathLocks.escribirAtomico(casePath, contenido);
+            LOGGER.info("Caso editado en {} con {} ediciones", casePath, ediciones.size());
+            calificacion = indexarEscritura(proyecto, projectPath, casePath, contenido);
+            etag = etagCaso(proyecto, ruta);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo editar el caso", e);
+        } finally {
+            escritura.unlock();
+        }
+        publicarCalidad(calificacion);
+        publicarCambio(proyecto, projectPath, casePath, CaseChangedEvent.Tipo.ACTUALIZADO);
+        return etag;
     }
 
     /**
@@ -134,12 +445,287 @@ public class CaseFileService {
     public void eliminarCaso(String proyecto, String ruta) {
         Path projectPath = validarProyecto(proyecto);
         Path casePath = normalizarRuta(projectPath, ruta);
+        Lock escritura = pathLocks.para(casePath).writeLock();
+        boolean publicar;
+        escritura.lock();
         try {
-            Files.deleteIfExists(casePath);
+            boolean eliminado = Files.deleteIfExists(casePath);
             LOGGER.warn("Caso eliminado en {}", casePath);
+            ProjectCaseIndex indice = indices.get(proyecto);
+            // Si el observador de disco ya quitó la entrada, también publicó el cambio.
+            boolean pendiente = indice == null || !indice.eliminar(casePath).isEmpty();
+            publicar = eliminado && pendiente;
         } catch (IOException e) {
             throw new FileAccessException("No se pudo eliminar el caso", e);
+        } finally {
+            escritura.unlock();
+        }
+        if (publicar) {
+            publicarCambio(proyecto, projectPath, casePath, CaseChangedEvent.Tipo.ELIMINADO);
+        }
+    }
+
+    /**
+     * Aplica un lote de altas, modificaciones y bajas de casos. Todas las operaciones se validan antes de
+     * tocar disco (tipo, ruta dentro del proyecto y con extensión .feature, contenido presente y rutas sin
+     * repetir); si alguna es inválida no se aplica ninguna. Las escrituras se reparten en el ejecutor y cada
+     * operación informa su propio resultado. El índice se actualiza al final en una sola pasada paralela
+     * que analiza la calidad de los contenidos escritos, y después se publican los eventos de cambio.
+     *
+     * @param proyecto    nombre del proyecto.
+     * @param operaciones operaciones a aplicar.
+     * @return resultado por operación.
+     */
+    public BatchResult ejecutarLote(String proyecto, List<CaseOperation> operaciones) {
+        Path projectPath = validarProyecto(proyecto);
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new IllegalArgumentException("El lote no contiene operaciones");
+        }
+        if (operaciones.size() > maxOperacionesLote) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxOperacionesLote + " operaciones");
+        }
+        List<Path> destinos = validarLote(projectPath, operaciones);
+
+        List<CompletableFuture<OperacionAplicada>> tareas = new ArrayList<>(operaciones.size());
+        for (int i = 0; i < operaciones.size(); i++) {
+            int indice = i;
+            tareas.add(CompletableFuture.supplyAsync(
+                    () -> aplicar(projectPath, indice, operaciones.get(indice), destinos.get(indice)), scanExecutor));
+        }
+        List<OperacionAplicada> aplicadas = tareas.stream().map(CompletableFuture::join).toList();
+
+        ProjectCaseIndex indice = indices.get(proyecto);
+        if (indice != null) {
+            CompletableFuture.allOf(aplicadas.stream()
+                    .filter(aplicada -> aplicada.cambio() != null)
+                    .map(aplicada -> CompletableFuture.runAsync(() -> indexarAplicada(indice, projectPath, aplicada), scanExecutor))
+                    .toArray(CompletableFuture<?>[]::new)).join();
         }
+        int exitosas = 0;
+        List<CaseOperationResult> resultados = new ArrayList<>(aplicadas.size());
+        for (OperacionAplicada aplicada : aplicadas) {
+            if (aplicada.cambio() != null) {
+                publicarCambio(proyecto, projectPath, aplicada.casePath(), aplicada.cambio());
+            }
+            if (aplicada.resultado().exitosa()) {
+                exitosas++;
+            }
+            resultados.add(aplicada.resultado());
+        }
+        LOGGER.info("Lote aplicado en {}: {} operaciones exitosas, {} fallidas", proyecto, exitosas, resultados.size() - exitosas);
+        return new BatchResult(exitosas, resultados.size() - exitosas, resultados);
+    }
+
+    /**
+     * Incorpora al índice en una sola pasada paralela un lote de archivos escritos fuera de este servicio,
+     * por ejemplo al importar un proyecto, y publica un {@link CaseChangedEvent} por archivo.
+     * Si el índice del proyecto aún no existe no se construye: la primera consulta ya leerá los archivos.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param cambios  ruta relativa de cada archivo escrito y tipo de cambio.
+     */
+    public void registrarCambios(String proyecto, Map<String, CaseChangedEvent.Tipo> cambios) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        Path projectPath = validarProyecto(proyecto);
+        ProjectCaseIndex indice = indices.get(proyecto);
+        if (indice != null) {
+            indice.actualizarTodos(cambios.keySet().stream().map(projectPath::resolve).toList());
+        }
+        cambios.forEach((ruta, tipo) -> eventPublisher.publishEvent(new CaseChangedEvent(proyecto, ruta, tipo)));
+        LOGGER.info("{} casos registrados en bloque para {}", cambios.size(), proyecto);
+    }
+
+    /**
+     * Operación de un lote ya aplicada en disco, con lo necesario para actualizar el índice al final.
+     */
+    private record OperacionAplicada(CaseOperationResult resultado, Path casePath, String contenido,
+                                     BasicFileAttributes attrs, CaseChangedEvent.Tipo cambio) {
+
+        static OperacionAplicada fallida(CaseOperationResult resultado) {
+            return new OperacionAplicada(resultado, null, null, null, null);
+        }
+    }
+
+    private List<Path> validarLote(Path projectPath, List<CaseOperation> operaciones) {
+        List<Path> destinos = new ArrayList<>(operaciones.size());
+        List<String> errores = new ArrayList<>();
+        Set<Path> vistos = new HashSet<>();
+        for (int i = 0; i < operaciones.size(); i++) {
+            CaseOperation operacion = operaciones.get(i);
+            Path casePath = null;
+            if (operacion == null || operacion.tipo() == null) {
+                errores.add("#" + i + ": falta el tipo de operación");
+            } else if (operacion.ruta() == null || operacion.ruta().isBlank()) {
+                errores.add("#" + i + ": falta la ruta");
+            } else {
+                try {
+                    casePath = normalizarRuta(projectPath, operacion.ruta());
+                } catch (IllegalArgumentException e) {
+                    errores.add("#" + i + ": " + e.getMessage());
+                }
+                if (casePath != null && !ProjectCaseIndex.esFeature(casePath)) {
+                    errores.add("#" + i + ": la ruta debe ser un archivo .feature");
+                } else if (casePath != null && !vistos.add(casePath)) {
+                    errores.add("#" + i + ": la ruta " + operacion.ruta() + " se repite en el lote");
+                }
+                if (operacion.tipo() != CaseOperation.Tipo.ELIMINAR && operacion.contenido() == null) {
+                    errores.add("#" + i + ": falta el contenido");
+                }
+            }
+            destinos.add(casePath);
+        }
+        if (!errores.isEmpty()) {
+            throw new IllegalArgumentException("Lote inválido, no se aplicó ninguna operación: " + String.join("; ", errores));
+        }
+        return destinos;
+    }
+
+    private OperacionAplicada aplicar(Path projectPath, int indice, CaseOperation operacion, Path casePath) {
+        String ruta = projectPath.relativize(casePath).toString();
+        Lock escritura = pathLocks.para(casePath).writeLock();
+        escritura.lock();
+        try {
+            switch (operacion.tipo()) {
+                case CREAR -> {
+                    boolean existia = Files.exists(casePath);
+                    return escrita(indice, ruta, casePath, operacion.contenido(), existia ? 200 : 201,
+                            existia ? CaseChangedEvent.Tipo.ACTUALIZADO : CaseChangedEvent.Tipo.CREADO);
+                }
+                case ACTUALIZAR -> {
+                    if (!Files.exists(casePath)) {
+                        return OperacionAplicada.fallida(new CaseOperationResult(indice, ruta, 404, null, "El archivo .feature no existe"));
+                    }
+                    if (operacion.ifMatch() != null
+                            && !coincideEtag(operacion.ifMatch(), etag(Files.readAttributes(casePath, BasicFileAttributes.class)))) {
+                        return OperacionAplicada.fallida(new CaseOperationResult(indice, ruta, 412, null, "El caso fue modificado después de leerlo"));
+                    }
+                    return escrita(indice, ruta, casePath, operacion.contenido(), 200, CaseChangedEvent.Tipo.ACTUALIZADO);
+                }
+                default -> {
+                    if (!Files.deleteIfExists(casePath)) {
+                        return OperacionAplicada.fallida(new CaseOperationResult(indice, ruta, 404, null, "El archivo .feature no existe"));
+                    }
+                    return new OperacionAplicada(new CaseOperationResult(indice, ruta, 204, null, null),
+                            casePath, null, null, CaseChangedEvent.Tipo.ELIMINADO);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Falló la operación {} del lote sobre {}", indice, casePath, e);
+            return OperacionAplicada.fallida(new CaseOperationResult(indice, ruta, 500, null, "Error de E/S: " + e.getMessage()));
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private OperacionAplicada escrita(int indice, String ruta, Path casePath, String contenido, int estado,
+                                      CaseChangedEvent.Tipo cambio) throws IOException {
+        pathLocks.escribirAtomico(casePath, contenido);
+        BasicFileAttributes attrs = Files.readAttributes(casePath, BasicFileAttributes.class);
+        return new OperacionAplicada(new CaseOperationResult(indice, ruta, estado, etag(attrs), null),
+                casePath, contenido, attrs, cambio);
+    }
+
+    private void indexarAplicada(ProjectCaseIndex indice, Path projectPath, OperacionAplicada aplicada) {
+        if (aplicada.cambio() == CaseChangedEvent.Tipo.ELIMINADO) {
+            indice.eliminar(aplicada.casePath());
+        } else {
+            publicarCalidad(registrarEscritura(indice, projectPath, aplicada.casePath(), aplicada.contenido(),
+                    aplicada.attrs()));
+        }
+    }
+
+    /**
+     * Rango de líneas resuelto de una edición (base 1, {@code hasta} inclusive) y sus líneas nuevas.
+     */
+    private record Reemplazo(int desde, int hasta, List<String> lineas) {
+    }
+
+    private String aplicarEdiciones(String original, List<CaseEdit> ediciones) {
+        String separador = original.contains("\r\n") ? "\r\n" : "\n";
+        boolean saltoFinal = original.endsWith("\n");
+        List<String> lineas = new ArrayList<>(Arrays.asList(original.split("\r?\n", -1)));
+        if (saltoFinal) {
+            lineas.remove(lineas.size() - 1);
+        }
+        GherkinDocument documento = null;
+        List<Reemplazo> reemplazos = new ArrayList<>(ediciones.size());
+        for (CaseEdit edicion : ediciones) {
+            if (edicion == null || edicion.contenido() == null) {
+                throw new IllegalArgumentException("Cada edición debe indicar contenido");
+            }
+            int desde;
+            int hasta;
+            if (edicion.escenario() != null) {
+                if (documento == null) {
+                    documento = GherkinTokenizer.parse(original);
+                }
+                GherkinScenario escenario = buscarEscenario(documento, edicion.escenario());
+                desde = escenario.linea();
+                hasta = escenario.lineaFin();
+            } else if (edicion.desde() != null && edicion.hasta() != null) {
+                desde = edicion.desde();
+                hasta = edicion.hasta();
+                if (desde < 1 || hasta < desde - 1 || hasta > lineas.size()) {
+                    throw new IllegalArgumentException("Rango de líneas inválido " + desde + "-" + hasta
+                            + "; el archivo tiene " + lineas.size() + " líneas");
+                }
+            } else {
+                throw new IllegalArgumentException("Cada edición debe indicar desde/hasta o escenario");
+            }
+            List<String> nuevas = edicion.contenido().isEmpty()
+                    ? List.of()
+                    : Arrays.asList(edicion.contenido().replaceFirst("\r?\n$", "").split("\r?\n", -1));
+            reemplazos.add(new Reemplazo(desde, hasta, nuevas));
+        }
+        reemplazos.sort(Comparator.comparingInt(Reemplazo::desde).thenComparingInt(Reemplazo::hasta));
+        for (int i = 1; i < reemplazos.size(); i++) {
+            Reemplazo anterior = reemplazos.get(i - 1);
+            Reemplazo actual = reemplazos.get(i);
+            if (actual.desde() <= anterior.hasta() || actual.desde() == anterior.desde()) {
+                throw new IllegalArgumentException("Las ediciones de las líneas " + anterior.desde() + "-" + anterior.hasta()
+                        + " y " + actual.desde() + "-" + actual.hasta() + " se solapan");
+            }
+        }
+        for (int i = reemplazos.size() - 1; i >= 0; i--) {
+            Reemplazo reemplazo = reemplazos.get(i);
+            List<String> rango = lineas.subList(reemplazo.desde() - 1, reemplazo.hasta());
+            rango.clear();
+            rango.addAll(reemplazo.lineas());
+        }
+        String resultado = String.join(separador, lineas);
+        return saltoFinal && !lineas.isEmpty() ? resultado + separador : resultado;
+    }
+
+    private GherkinScenario buscarEscenario(GherkinDocument documento, String nombre) {
+        List<GherkinScenario> encontrados = documento.escenarios().stream()
+                .filter(escenario -> escenario.nombre().equals(nombre))
+                .toList();
+        if (encontrados.isEmpty()) {
+            throw new IllegalArgumentException("El escenario '" + nombre + "' no existe en el caso");
+        }
+        if (encontrados.size() > 1) {
+            throw new IllegalArgumentException("Hay " + encontrados.size() + " escenarios llamados '" + nombre
+                    + "'; use un rango de líneas");
+        }
+        return encontrados.get(0);
+    }
+
+    /**
+     * Calidad obsoleta que se serviría para un caso cuyo análisis diferido aún no terminó, o null si no hay.
+     */
+    private QualityResult calidadPendiente(String proyecto, String ruta, Path casePath) {
+        ProjectCaseIndex indice = indices.get(proyecto);
+        if (indice == null || !qualityPipeline.pendiente(casePath.toString())) {
+            return null;
+        }
+        return indice.calidadObsoleta(ruta);
+    }
+
+    private String etag(BasicFileAttributes attrs) {
+        return "\"" + Long.toHexString(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)) + "-"
+                + Long.toHexString(attrs.size()) + "-" + qualityAnalyzer.huellaReglas().substring(0, 8) + "\"";
     }
 
     private Path validarProyecto(String proyecto) {
@@ -158,41 +744,214 @@ public class CaseFileService {
         return casePath;
     }
 
-    private TestCaseSummary buildSummary(Path projectPath, Path casePath) {
+    /**
+     * Comprueba que el caso exista y, si se indicó If-Match, que no haya cambiado. Debe invocarse con el
+     * bloqueo de escritura del caso tomado para que nadie lo modifique entre la comprobación y la escritura.
+     */
+    private void verificarVersion(String ruta, Path casePath, String ifMatch) {
+        if (!Files.exists(casePath)) {
+            throw new ProjectNotFoundException("El archivo .feature no existe: " + ruta);
+        }
+        if (ifMatch != null && !coincideEtag(ifMatch, etagContenido(casePath, ruta))) {
+            throw new PreconditionFailedException("El caso " + ruta + " fue modificado después de leerlo; vuelva a cargarlo antes de guardar");
+        }
+    }
+
+    /**
+     * Lee un caso completo con el bloqueo de lectura de su ruta tomado.
+     */
+    private String leer(Path casePath) throws IOException {
+        Lock lectura = pathLocks.para(casePath).readLock();
+        lectura.lock();
+        try {
+            return Files.readString(casePath, StandardCharsets.UTF_8);
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * Compara If-Match con el ETag del contenido usando comparación fuerte: los ETags débiles nunca coinciden.
+     * La marca de calidad obsoleta se ignora, porque sólo distingue el estado del análisis y no el contenido.
+     */
+    private boolean coincideEtag(String ifMatch, String actual) {
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim().replace(MARCA_CALIDAD_OBSOLETA + "\"", "\"");
+            if (valor.equals("*") || valor.equals(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String codificarCursor(String ruta) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ruta.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    /**
+     * Devuelve el índice del proyecto, construyéndolo si aún no existe. La construcción recorre el árbol y
+     * lee las cabeceras fuera del mapa de índices, para no bloquear a los demás proyectos que comparten su
+     * segmento; las peticiones concurrentes del mismo proyecto se unen a una única construcción mediante
+     * {@link RequestCoalescer} y el resultado se publica con {@code putIfAbsent}.
+     */
+    private ProjectCaseIndex obtenerIndice(String proyecto) {
+        ProjectCaseIndex indice = indices.get(proyecto);
+        if (indice != null) {
+            return indice;
+        }
+        return requestCoalescer.compartir("construirIndice", proyecto, () -> {
+            ProjectCaseIndex existente = indices.get(proyecto);
+            if (existente != null) {
+                return existente;
+            }
+            ProjectCaseIndex nuevo = construirIndice(proyecto);
+            ProjectCaseIndex anterior = indices.putIfAbsent(proyecto, nuevo);
+            if (anterior != null) {
+                fileSystemWatcher.cancelar(nuevo);
+                return anterior;
+            }
+            // La carpeta pudo desaparecer antes de publicar el índice, cuando su invalidación aún no lo encontraba.
+            if (!Files.isDirectory(featuresRoot.resolve(proyecto))) {
+                descartarIndice(proyecto, nuevo);
+            }
+            return nuevo;
+        });
+    }
+
+    private ProjectCaseIndex construirIndice(String proyecto) {
+        Path projectPath = featuresRoot.resolve(proyecto);
+        ProjectCaseIndex indice = new ProjectCaseIndex(proyecto, projectPath,
+                (casePath, attrs) -> buildEntry(projectPath, casePath, attrs),
+                (entrada, conCalidad) -> leerDetalle(projectPath.resolve(entrada.ruta()), conCalidad),
+                invalido -> descartarIndice(proyecto, invalido),
+                eventPublisher::publishEvent,
+                eventPublisher::publishEvent,
+                scanExecutor);
+        // Se observa antes de recorrer para no perder cambios ocurridos durante la construcción.
+        fileSystemWatcher.observarArbol(projectPath, indice);
         try {
-            String contenido = Files.readString(casePath, StandardCharsets.UTF_8);
-            List<String> escenarios = extraerEscenarios(contenido);
-            List<String> tags = extraerTags(contenido);
-            QualityResult calidad = qualityAnalyzer.analizarCaso(contenido);
-            TestCaseSummary summary = new TestCaseSummary();
-            summary.setRuta(projectPath.relativize(casePath).toString());
-            summary.setEscenario(escenarios.isEmpty() ? "" : escenarios.get(0));
-            summary.setTags(tags);
-            summary.setCalidad(calidad);
-            return summary;
+            indice.reconstruir();
+        } catch (RuntimeException e) {
+            fileSystemWatcher.cancelar(indice);
+            throw e;
+        }
+        return indice;
+    }
+
+    private void descartarIndice(String proyecto, ProjectCaseIndex indice) {
+        if (indices.remove(proyecto, indice)) {
+            fileSystemWatcher.cancelar(indice);
+            LOGGER.info("Índice de casos descartado para {}", proyecto);
+        }
+    }
+
+    /**
+     * Publica un cambio de caso. Los receptores corren en el hilo que publica, y algunos leen otros casos o
+     * toman sus propios bloqueos, por lo que nunca debe invocarse con el bloqueo de una ruta tomado.
+     */
+    private void publicarCambio(String proyecto, Path projectPath, Path casePath, CaseChangedEvent.Tipo tipo) {
+        if (ProjectCaseIndex.esFeature(casePath)) {
+            eventPublisher.publishEvent(new CaseChangedEvent(proyecto, projectPath.relativize(casePath).toString(), tipo));
+        }
+    }
+
+    /**
+     * Publica la calidad nueva de un caso recién escrito; como {@link #publicarCambio}, fuera del bloqueo de la ruta.
+     */
+    private void publicarCalidad(CaseQualityEvent calificacion) {
+        if (calificacion != null) {
+            eventPublisher.publishEvent(calificacion);
+        }
+    }
+
+    /**
+     * Registra en el índice, si existe, un contenido recién escrito.
+     *
+     * @return calidad nueva a publicar al soltar el bloqueo de la ruta, o null.
+     */
+    private CaseQualityEvent indexarEscritura(String proyecto, Path projectPath, Path casePath, String contenido)
+            throws IOException {
+        ProjectCaseIndex indice = indices.get(proyecto);
+        if (indice == null || !ProjectCaseIndex.esFeature(casePath)) {
+            return null;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(casePath, BasicFileAttributes.class);
+        return registrarEscritura(indice, projectPath, casePath, contenido, attrs);
+    }
+
+    /**
+     * Construye la entrada del índice leyendo sólo la cabecera del archivo, con un búfer pequeño que se
+     * descarta al encontrar el primer escenario.
+     */
+    private IndexedCase buildEntry(Path projectPath, Path casePath, BasicFileAttributes attrs) {
+        Lock lectura = pathLocks.para(casePath).readLock();
+        lectura.lock();
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(casePath), StandardCharsets.UTF_8), BUFFER_CABECERA)) {
+            GherkinDocument cabecera = GherkinTokenizer.parseCabecera(lector);
+            return new IndexedCase(projectPath.relativize(casePath).toString(), cabecera.primerEscenario(),
+                    cabecera.tagsCabecera(), null, attrs.lastModifiedTime(), attrs.size(), null);
         } catch (IOException e) {
             throw new FileAccessException("No se pudo leer el caso " + casePath, e);
+        } finally {
+            lectura.unlock();
         }
     }
 
-    private List<String> extraerEscenarios(String contenido) {
-        List<String> escenarios = new ArrayList<>();
-        Matcher matcher = ESCENARIO_PATTERN.matcher(contenido);
-        while (matcher.find()) {
-            escenarios.add(matcher.group(1).trim());
+    /**
+     * Registra en el índice la entrada completa de un contenido recién escrito, que ya está en memoria. Los
+     * escenarios y tags salen del documento tokenizado; la calidad, de la caché si ese contenido ya se analizó.
+     * Si no, se conserva la calidad del contenido anterior marcada como obsoleta y el análisis se encola en el
+     * {@link QualityPipeline}, que la reemplaza al terminar; un caso sin calidad anterior se analiza en el momento.
+     *
+     * @return calidad nueva que el llamador publica al soltar el bloqueo de la ruta, o null.
+     */
+    private CaseQualityEvent registrarEscritura(ProjectCaseIndex indice, Path projectPath, Path casePath, String contenido,
+                                    BasicFileAttributes attrs) {
+        String ruta = projectPath.relativize(casePath).toString();
+        GherkinDocument documento = GherkinTokenizer.parse(contenido);
+        QualityResult calidad = qualityAnalyzer.resultadoEnCache(contenido);
+        QualityResult anterior = calidad == null ? indice.calidad(ruta) : null;
+        if (calidad == null && anterior == null) {
+            calidad = qualityAnalyzer.analizarCaso(contenido, documento);
         }
-        return escenarios;
+        boolean diferida = calidad == null;
+        IndexedCase.Detalle detalle = new IndexedCase.Detalle(documento.nombresEscenarios(),
+                documento.tags(), diferida ? anterior : calidad, diferida);
+        CaseQualityEvent calificacion = indice.registrar(new IndexedCase(ruta, documento.primerEscenario(),
+                documento.tagsCabecera(), detalle, attrs.lastModifiedTime(), attrs.size(), null));
+        if (diferida) {
+            FileTime modificacion = attrs.lastModifiedTime();
+            long tamano = attrs.size();
+            qualityPipeline.encolar(casePath.toString(), contenido,
+                    resultado -> indice.completarCalidad(ruta, modificacion, tamano, resultado));
+        }
+        return calificacion;
     }
 
-    private List<String> extraerTags(String contenido) {
-        List<String> tags = new ArrayList<>();
-        String[] lineas = contenido.split("\\r?\\n");
-        for (String linea : lineas) {
-            Matcher matcher = TAG_PATTERN.matcher(linea.trim());
-            if (matcher.find()) {
-                Collections.addAll(tags, matcher.group(1).split("\\s+"));
-            }
+    /**
+     * Escenarios y tags del archivo; la calidad sólo se analiza si se pide, de modo que las consultas por tags
+     * no pagan el análisis.
+     */
+    private IndexedCase.Detalle leerDetalle(Path casePath, boolean conCalidad) {
+        try {
+            String contenido = leer(casePath);
+            GherkinDocument documento = GherkinTokenizer.parse(contenido);
+            return new IndexedCase.Detalle(documento.nombresEscenarios(), documento.tags(),
+                    conCalidad ? qualityAnalyzer.analizarCaso(contenido, documento) : null);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer el caso " + casePath, e);
         }
-        return tags;
     }
 }
@@ -0,0 +1,17 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.QualityResult;
+
+/**
+ * Evento de aplicación publicado cuando el índice de un proyecto registra un resultado de calidad vigente para
+ * un caso: al guardarlo, al terminar su análisis diferido o al leer su detalle completo (primera lectura, precarga,
+ * listados y nuevo análisis tras recargar las reglas). Puede repetirse con el mismo resultado; quien lo recibe
+ * decide si cambió. Se publica de forma síncrona, a veces con el índice o el archivo del caso bloqueados, por lo
+ * que los receptores no deben hacer trabajo costoso ni tomar otros bloqueos en el mismo hilo.
+ *
+ * @param proyecto nombre del proyecto.
+ * @param ruta     ruta relativa del caso dentro del proyecto.
+ * @param calidad  resultado del análisis del contenido actual.
+ */
+public record CaseQualityEvent(String proyecto, String ruta, QualityResult calidad) {
+}
@@ -0,0 +1,503 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.gherkin.GherkinDocument;
+import com.example.webtestingia.gherkin.GherkinScenario;
+import com.example.webtestingia.gherkin.GherkinStep;
+import com.example.webtestingia.gherkin.GherkinTokenizer;
+import com.example.webtestingia.gherkin.TagExpression;
+import com.example.webtestingia.model.FieldSelection;
+import com.example.webtestingia.model.SearchHit;
+import com.example.webtestingia.model.SearchResult;
+import com.example.webtestingia.model.TestCaseSummary;
+import com.example.webtestingia.model.exception.FileAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido global sobre los escenarios de todos los proyectos: nombres de escenario, texto de
+ * pasos, tags y nombres de locators referenciados entre comillas en los pasos. Se construye en la primera
+ * búsqueda y luego se actualiza por caso con cada {@link CaseChangedEvent}. La construcción corre fuera del
+ * bloqueo del índice sobre una instancia nueva que se publica al terminar; los cambios recibidos mientras
+ * tanto se anotan y se vuelven a leer del disco antes de publicarla.
+ */
+@Service
+public class CaseSearchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CaseSearchService.class);
+    private static final int MAX_LIMITE = 1000;
+    private static final Pattern ARGUMENTO = Pattern.compile("\"([^\"]+)\"");
+
+    /**
+     * Campos indexados; el nombre en minúsculas es el que se acepta en {@code field=}.
+     */
+    private enum Campo {
+        ESCENARIO,
+        PASO,
+        TAG,
+        LOCATOR;
+
+        static Set<Campo> desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return EnumSet.allOf(Campo.class);
+            }
+            Set<Campo> campos = EnumSet.noneOf(Campo.class);
+            for (String nombre : valor.split(",")) {
+                try {
+                    campos.add(Campo.valueOf(nombre.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Campo de búsqueda desconocido: " + nombre.trim()
+                            + ". Disponibles: escenario, paso, tag, locator");
+                }
+            }
+            return campos;
+        }
+    }
+
+    private record Documento(String proyecto, String ruta, String escenario, int linea, List<String> tags,
+                             Map<Campo, Set<String>> terminos) {
+
+        /**
+         * Copia sin la línea, para reconocer escenarios que sólo se desplazaron dentro del archivo.
+         */
+        Documento sinLinea() {
+            return new Documento(proyecto, ruta, escenario, 0, tags, terminos);
+        }
+    }
+
+    private record Termino(String texto, boolean prefijo) {
+    }
+
+    /**
+     * Contenido del índice: escenarios por id, ids por caso y postings por campo. Sólo se modifica con el
+     * bloqueo de escritura tomado, salvo durante la construcción, cuando aún no es visible para nadie más.
+     */
+    private static final class Indice {
+        private final Map<Integer, Documento> documentos = new HashMap<>();
+        private final Map<String, List<Integer>> idsPorCaso = new HashMap<>();
+        private final Map<Campo, TreeMap<String, Set<Integer>>> postings = new EnumMap<>(Campo.class);
+        private int siguienteId;
+
+        Indice() {
+            for (Campo campo : Campo.values()) {
+                postings.put(campo, new TreeMap<>());
+            }
+        }
+    }
+
+    private final Path featuresRoot = Paths.get("src/test/resources/features");
+    private final CaseFileService caseFileService;
+    private final LocatorService locatorService;
+    private final PathLocks pathLocks;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object construccion = new Object();
+    private final Set<String> pendientes = new LinkedHashSet<>();
+    private Indice indice = new Indice();
+    private volatile boolean activo;
+    private volatile boolean construido;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param caseFileService servicio de casos, usado para enumerar los casos de cada proyecto.
+     * @param locatorService  servicio de locators, usado para reconocer locators en los pasos.
+     * @param pathLocks       bloqueos por archivo, para no leer un caso mientras se escribe.
+     */
+    public CaseSearchService(CaseFileService caseFileService, LocatorService locatorService, PathLocks pathLocks) {
+        this.caseFileService = caseFileService;
+        this.locatorService = locatorService;
+        this.pathLocks = pathLocks;
+    }
+
+    /**
+     * Busca escenarios en todos los proyectos.
+     *
+     * @param consulta  términos separados por espacios que deben aparecer todos; un {@code *} final busca por prefijo.
+     * @param tags      expresión de tags, por ejemplo {@code @smoke and not @slow}.
+     * @param proyecto  proyecto al que limitar la búsqueda, o null para todos.
+     * @param campos    campos separados por coma donde buscar los términos (escenario, paso, tag, locator), o null para todos.
+     * @param limite    cantidad máxima de escenarios a devolver.
+     * @return total de coincidencias y escenarios encontrados.
+     */
+    public SearchResult buscar(String consulta, String tags, String proyecto, String campos, int limite) {
+        if (limite < 1 || limite > MAX_LIMITE) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMITE);
+        }
+        boolean sinConsulta = consulta == null || consulta.isBlank();
+        if (sinConsulta && (tags == null || tags.isBlank())) {
+            throw new IllegalArgumentException("Debe indicar q o tags");
+        }
+        Set<Campo> camposBusqueda = Campo.desde(campos);
+        TagExpression expresion = tags == null || tags.isBlank() ? null : TagExpression.parse(tags);
+        List<Termino> terminos = sinConsulta ? List.of() : interpretarConsulta(consulta);
+        asegurarConstruido();
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> candidatos = null;
+            for (Termino termino : terminos) {
+                Set<Integer> coincidencias = coincidencias(indice, termino, camposBusqueda);
+                if (candidatos == null) {
+                    candidatos = coincidencias;
+                } else {
+                    candidatos.retainAll(coincidencias);
+                }
+                if (candidatos.isEmpty()) {
+                    break;
+                }
+            }
+            Stream<Documento> encontrados = candidatos == null
+                    ? indice.documentos.values().stream()
+                    : candidatos.stream().map(indice.documentos::get);
+            List<SearchHit> hits = encontrados
+                    .filter(doc -> proyecto == null || proyecto.isBlank() || doc.proyecto().equals(proyecto))
+                    .filter(doc -> expresion == null || expresion.evaluar(doc.tags()))
+                    .map(doc -> new SearchHit(doc.proyecto(), doc.ruta(), doc.escenario(), doc.linea(), doc.tags()))
+                    .sorted(Comparator.comparing(SearchHit::proyecto).thenComparing(SearchHit::ruta)
+                            .thenComparingInt(SearchHit::linea))
+                    .toList();
+            return new SearchResult(hits.size(), hits.subList(0, Math.min(limite, hits.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Construye el índice si aún no existe, para que la primera búsqueda no pague el recorrido de los proyectos.
+     */
+    public void precargar() {
+        asegurarConstruido();
+    }
+
+    /**
+     * Expone el tamaño del índice.
+     *
+     * @return mapa con escenarios, casos y términos indexados.
+     */
+    public Map<String, Object> estadisticas() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("built", construido);
+            stats.put("scenarios", indice.documentos.size());
+            stats.put("cases", indice.idsPorCaso.size());
+            stats.put("terms", indice.postings.values().stream().mapToInt(Map::size).sum());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica un cambio de caso al índice. Si el índice aún no se construyó el evento se ignora,
+     * porque la construcción leerá el estado actual del disco; si se está construyendo, el caso se anota
+     * para volver a leerlo antes de publicar el índice nuevo.
+     *
+     * @param evento cambio publicado por {@link CaseFileService}.
+     */
+    @EventListener
+    public void alCambiarCaso(CaseChangedEvent evento) {
+        if (!activo) {
+            return;
+        }
+        if (!construido) {
+            lock.writeLock().lock();
+            try {
+                if (!construido) {
+                    pendientes.add(evento.proyecto() + "/" + evento.ruta());
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        List<Documento> nuevos = evento.tipo() == CaseChangedEvent.Tipo.ELIMINADO
+                ? List.of()
+                : analizarCaso(evento.proyecto(), evento.ruta(), nombresLocators(evento.proyecto()));
+        lock.writeLock().lock();
+        try {
+            reemplazar(indice, evento.proyecto(), evento.ruta(), nuevos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Construye el índice una sola vez. Las búsquedas concurrentes esperan a la construcción en curso sin
+     * tomar el bloqueo del índice, y el recorrido de los proyectos corre sin bloquear las actualizaciones.
+     */
+    private void asegurarConstruido() {
+        if (construido) {
+            return;
+        }
+        synchronized (construccion) {
+            if (construido) {
+                return;
+            }
+            activo = true;
+            try {
+                Indice nuevo = construir();
+                publicar(nuevo);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    activo = false;
+                    pendientes.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Relee fuera del bloqueo los casos que cambiaron durante la construcción y publica el índice cuando ya
+     * no quedan cambios pendientes.
+     */
+    private void publicar(Indice nuevo) {
+        Map<String, Set<String>> locatorsPorProyecto = new HashMap<>();
+        while (true) {
+            List<String> cambiados;
+            lock.writeLock().lock();
+            try {
+                if (pendientes.isEmpty()) {
+                    indice = nuevo;
+                    construido = true;
+                    return;
+                }
+                cambiados = new ArrayList<>(pendientes);
+                pendientes.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (String clave : cambiados) {
+                int separador = clave.indexOf('/');
+                String proyecto = clave.substring(0, separador);
+                String ruta = clave.substring(separador + 1);
+                Set<String> locators = locatorsPorProyecto.computeIfAbsent(proyecto, this::nombresLocators);
+                reemplazar(nuevo, proyecto, ruta, analizarCaso(proyecto, ruta, locators));
+            }
+        }
+    }
+
+    /**
+     * Indexa todos los casos de todos los proyectos en un índice nuevo. Enumerar los casos mediante
+     * {@link CaseFileService} deja además observado cada proyecto, de modo que los cambios externos también
+     * llegan como eventos.
+     */
+    private Indice construir() {
+        Indice nuevo = new Indice();
+        if (!Files.isDirectory(featuresRoot)) {
+            return nuevo;
+        }
+        List<String> proyectos;
+        try (Stream<Path> rutas = Files.list(featuresRoot)) {
+            proyectos = rutas.filter(Files::isDirectory).map(path -> path.getFileName().toString()).sorted().toList();
+        } catch (IOException e) {
+            throw new FileAccessException("Error al listar proyectos para el índice de búsqueda", e);
+        }
+        for (String proyecto : proyectos) {
+            Set<String> locators = nombresLocators(proyecto);
+            for (TestCaseSummary caso : caseFileService.listarCasos(proyecto, FieldSelection.de(Set.of("ruta")))) {
+                if (caso.getError() == null) {
+                    reemplazar(nuevo, proyecto, caso.getRuta(), analizarCaso(proyecto, caso.getRuta(), locators));
+                }
+            }
+        }
+        LOGGER.info("Índice de búsqueda construido con {} escenarios de {} proyectos", nuevo.documentos.size(), proyectos.size());
+        return nuevo;
+    }
+
+    /**
+     * Lee y tokeniza un caso con el bloqueo de lectura de su ruta tomado, de modo que nunca se indexa un
+     * archivo a medio escribir.
+     */
+    private List<Documento> analizarCaso(String proyecto, String ruta, Set<String> locators) {
+        Path casePath = featuresRoot.resolve(proyecto).resolve(ruta);
+        String contenido;
+        Lock lectura = pathLocks.para(casePath).readLock();
+        lectura.lock();
+        try {
+            contenido = Files.readString(casePath, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo leer {} de {} para el índice de búsqueda", ruta, proyecto, e);
+            return List.of();
+        } finally {
+            lectura.unlock();
+        }
+        GherkinDocument documento = GherkinTokenizer.parse(contenido);
+        List<GherkinStep> pasosComunes = documento.background() == null ? List.of() : documento.background().pasos();
+        List<Documento> resultado = new ArrayList<>();
+        for (GherkinScenario escenario : documento.escenarios()) {
+            Set<String> tags = new LinkedHashSet<>(documento.featureTags());
+            tags.addAll(escenario.tags());
+            Map<Campo, Set<String>> terminos = new EnumMap<>(Campo.class);
+            terminos.put(Campo.ESCENARIO, tokens(escenario.nombre()));
+            terminos.put(Campo.TAG, tags.stream().map(tag -> tag.substring(1).toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet()));
+            Set<String> pasos = new HashSet<>();
+            Set<String> referenciados = new HashSet<>();
+            for (List<GherkinStep> grupo : List.of(pasosComunes, escenario.pasos())) {
+                for (GherkinStep paso : grupo) {
+                    pasos.addAll(tokens(paso.texto()));
+                    Matcher argumento = ARGUMENTO.matcher(paso.texto());
+                    while (argumento.find()) {
+                        if (locators.contains(argumento.group(1))) {
+                            referenciados.add(argumento.group(1).toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+            }
+            terminos.put(Campo.PASO, pasos);
+            terminos.put(Campo.LOCATOR, referenciados);
+            resultado.add(new Documento(proyecto, ruta, escenario.nombre(), escenario.linea(), List.copyOf(tags), terminos));
+        }
+        return resultado;
+    }
+
+    /**
+     * Sustituye los escenarios indexados de un caso. Los escenarios que no cambiaron (aunque se hayan
+     * desplazado de línea) conservan su id y sus postings; sólo se tocan los postings de los escenarios
+     * nuevos, modificados o eliminados. Debe invocarse con el bloqueo de escritura tomado si el índice ya
+     * está publicado.
+     */
+    private void reemplazar(Indice indice, String proyecto, String ruta, List<Documento> nuevos) {
+        Map<Integer, Documento> documentos = indice.documentos;
+        String clave = proyecto + "/" + ruta;
+        List<Integer> anteriores = indice.idsPorCaso.remove(clave);
+        Map<Documento, Deque<Integer>> reutilizables = new HashMap<>();
+        if (anteriores != null) {
+            for (Integer id : anteriores) {
+                reutilizables.computeIfAbsent(documentos.get(id).sinLinea(), d -> new ArrayDeque<>()).add(id);
+            }
+        }
+        List<Integer> ids = new ArrayList<>(nuevos.size());
+        for (Documento documento : nuevos) {
+            Deque<Integer> iguales = reutilizables.get(documento.sinLinea());
+            if (iguales != null && !iguales.isEmpty()) {
+                int id = iguales.poll();
+                ids.add(id);
+                documentos.put(id, documento);
+                continue;
+            }
+            int id = indice.siguienteId++;
+            ids.add(id);
+            documentos.put(id, documento);
+            documento.terminos().forEach((campo, terminos) -> {
+                TreeMap<String, Set<Integer>> porTermino = indice.postings.get(campo);
+                for (String termino : terminos) {
+                    porTermino.computeIfAbsent(termino, t -> new HashSet<>()).add(id);
+                }
+            });
+        }
+        for (Deque<Integer> sobrantes : reutilizables.values()) {
+            for (Integer id : sobrantes) {
+                quitarPostings(indice, id, documentos.remove(id));
+            }
+        }
+        if (!ids.isEmpty()) {
+            indice.idsPorCaso.put(clave, ids);
+        }
+    }
+
+    private void quitarPostings(Indice indice, int id, Documento documento) {
+        documento.terminos().forEach((campo, terminos) -> {
+            TreeMap<String, Set<Integer>> porTermino = indice.postings.get(campo);
+            for (String termino : terminos) {
+                Set<Integer> ids = porTermino.get(termino);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    porTermino.remove(termino);
+                }
+            }
+        });
+    }
+
+    private Set<Integer> coincidencias(Indice indice, Termino termino, Set<Campo> campos) {
+        Set<Integer> ids = new HashSet<>();
+        for (Campo campo : campos) {
+            TreeMap<String, Set<Integer>> porTermino = indice.postings.get(campo);
+            if (termino.prefijo()) {
+                porTermino.subMap(termino.texto(), true, termino.texto() + Character.MAX_VALUE, false)
+                        .values().forEach(ids::addAll);
+            } else {
+                Set<Integer> exactos = porTermino.get(termino.texto());
+                if (exactos != null) {
+                    ids.addAll(exactos);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Convierte la consulta en términos normalizados; el {@code *} final de una palabra convierte en
+     * prefijo a su último término.
+     */
+    private List<Termino> interpretarConsulta(String consulta) {
+        List<Termino> terminos = new ArrayList<>();
+        for (String palabra : consulta.trim().split("\\s+")) {
+            boolean prefijo = palabra.endsWith("*");
+            List<String> partes = new ArrayList<>(tokens(prefijo ? palabra.substring(0, palabra.length() - 1) : palabra));
+            for (int i = 0; i < partes.size(); i++) {
+                terminos.add(new Termino(partes.get(i), prefijo && i == partes.size() - 1));
+            }
+        }
+        if (terminos.isEmpty()) {
+            throw new IllegalArgumentException("La consulta no contiene términos buscables");
+        }
+        return terminos;
+    }
+
+    private Set<String> nombresLocators(String proyecto) {
+        try {
+            return locatorService.obtenerLocators(proyecto).values().stream()
+                    .flatMap(grupo -> grupo.keySet().stream())
+                    .collect(Collectors.toSet());
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudieron cargar los locators de {} para el índice de búsqueda", proyecto, e);
+            return Set.of();
+        }
+    }
+
+    /**
+     * Divide un texto en palabras en minúsculas formadas por letras y dígitos, conservando el orden.
+     */
+    private static Set<String> tokens(String texto) {
+        return Arrays.stream(texto.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
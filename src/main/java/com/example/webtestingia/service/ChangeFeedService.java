@@ -0,0 +1,275 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.CaseChange;
+import com.example.webtestingia.model.ChangeFeed;
+import com.example.webtestingia.model.exception.FileAccessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Registro de cambios por proyecto para sincronización incremental. Cada {@link CaseChangedEvent} recibe
+ * una secuencia creciente dentro de su proyecto y se guarda en un {@link ProjectChangeLog}; los clientes piden
+ * los cambios posteriores a la última secuencia que conocen, o se suscriben por Server-Sent Events.
+ * Sólo se registran los cambios ocurridos con la aplicación en marcha: consultar el diario activa la observación
+ * del proyecto en disco, pero lo que se modifique con la aplicación detenida no queda registrado.
+ */
+@Service
+public class ChangeFeedService {
+
+    /**
+     * Archivo del diario dentro de la carpeta de cada proyecto bajo {@code casos.cambios.path}.
+     */
+    static final String ARCHIVO = "changes.jsonl";
+    /**
+     * Diario que versiones anteriores guardaban dentro de la carpeta del proyecto; se mueve al abrirlo.
+     */
+    private static final String ARCHIVO_ANTERIOR = ".changes.jsonl";
+    private static final int MAX_LIMITE = 10000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private final Path featuresRoot = Paths.get("src/test/resources/features");
+    private final Path raiz;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final CaseFileService caseFileService;
+    private final PathLocks pathLocks;
+    private final int maxMemoria;
+    private final int maxDisco;
+    private final long timeoutSuscripcion;
+    private final Map<String, ProjectChangeLog> diarios = new ConcurrentHashMap<>();
+    private final Map<String, List<Suscripcion>> suscripciones = new ConcurrentHashMap<>();
+    private final ExecutorService envios = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "change-feed");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    /**
+     * Suscripción SSE. Sólo se modifica desde el hilo de envíos: recibe primero los cambios pendientes del
+     * diario y después los nuevos, sin repetir secuencias ya enviadas.
+     */
+    private static final class Suscripcion {
+        private final SseEmitter emisor;
+        private long ultimaEnviada;
+        private boolean iniciada;
+
+        private Suscripcion(SseEmitter emisor, long desde) {
+            this.emisor = emisor;
+            this.ultimaEnviada = desde;
+        }
+    }
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param caseFileService    servicio de casos, cuyo índice observa el proyecto en disco.
+     * @param raiz               carpeta bajo la que se guarda el diario de cada proyecto, fuera de los casos.
+     * @param pathLocks          escritura atómica al compactar los diarios.
+     * @param maxMemoria         cambios recientes conservados en memoria por proyecto.
+     * @param maxDisco           cambios conservados en el archivo de cada proyecto.
+     * @param timeoutSuscripcion duración máxima de una suscripción SSE en milisegundos.
+     */
+    public ChangeFeedService(CaseFileService caseFileService,
+                             @Value("${casos.cambios.path:data/changes}") String raiz,
+                             PathLocks pathLocks,
+                             @Value("${casos.cambios.max-memoria:1000}") int maxMemoria,
+                             @Value("${casos.cambios.max-disco:100000}") int maxDisco,
+                             @Value("${casos.cambios.sse-timeout-ms:1800000}") long timeoutSuscripcion) {
+        this.caseFileService = caseFileService;
+        this.raiz = Paths.get(raiz);
+        this.pathLocks = pathLocks;
+        this.maxMemoria = maxMemoria;
+        this.maxDisco = maxDisco;
+        this.timeoutSuscripcion = timeoutSuscripcion;
+    }
+
+    /**
+     * Cierra las suscripciones y los archivos de los diarios al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        envios.shutdownNow();
+        suscripciones.values().forEach(lista -> lista.forEach(suscripcion -> suscripcion.emisor.complete()));
+        diarios.values().forEach(ProjectChangeLog::close);
+    }
+
+    /**
+     * Registra un cambio de caso en el diario de su proyecto y lo envía a los suscriptores.
+     *
+     * @param evento cambio publicado por {@link CaseFileService}.
+     */
+    @EventListener
+    public void alCambiarCaso(CaseChangedEvent evento) {
+        ProjectChangeLog diario;
+        try {
+            diario = obtenerDiario(evento.proyecto());
+        } catch (FileAccessException e) {
+            LOGGER.warn("No se registró el cambio de {} en {}", evento.ruta(), evento.proyecto(), e);
+            return;
+        }
+        CaseChange cambio = diario.registrar(evento.ruta(), evento.tipo().name());
+        List<Suscripcion> lista = suscripciones.get(evento.proyecto());
+        if (lista != null && !lista.isEmpty()) {
+            envios.execute(() -> difundir(evento.proyecto(), lista, cambio));
+        }
+    }
+
+    /**
+     * Devuelve los cambios de un proyecto posteriores a una secuencia.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param desde    última secuencia conocida por el cliente; 0 para empezar desde el primer cambio conservado.
+     * @param limite   máximo de cambios a devolver.
+     * @return cambios y secuencia desde la que continuar.
+     */
+    public ChangeFeed cambiosDesde(String proyecto, long desde, int limite) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("La secuencia no puede ser negativa");
+        }
+        if (limite < 1 || limite > MAX_LIMITE) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMITE);
+        }
+        caseFileService.observarCambios(proyecto);
+        try {
+            return obtenerDiario(proyecto).desde(desde, limite);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer el diario de cambios de " + proyecto, e);
+        }
+    }
+
+    /**
+     * Abre una suscripción SSE a los cambios de un proyecto. Primero se envían los cambios posteriores a
+     * {@code desde} y luego cada cambio nuevo, como eventos {@code change} cuyo id es la secuencia (el cliente
+     * puede reanudar con {@code Last-Event-ID}). Si los cambios pedidos ya no se conservan se envía un evento
+     * {@code reset} con la secuencia actual y la suscripción continúa desde ella.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param desde    última secuencia conocida por el cliente.
+     * @return emisor SSE de la respuesta.
+     */
+    public SseEmitter suscribir(String proyecto, long desde) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("La secuencia no puede ser negativa");
+        }
+        caseFileService.observarCambios(proyecto);
+        ProjectChangeLog diario = obtenerDiario(proyecto);
+        SseEmitter emisor = new SseEmitter(timeoutSuscripcion);
+        Suscripcion suscripcion = new Suscripcion(emisor, desde);
+        List<Suscripcion> lista = suscripciones.computeIfAbsent(proyecto, p -> new CopyOnWriteArrayList<>());
+        Runnable quitar = () -> lista.remove(suscripcion);
+        emisor.onCompletion(quitar);
+        emisor.onTimeout(quitar);
+        emisor.onError(error -> quitar.run());
+        // Se agrega antes de leer el diario: los cambios posteriores encolan su envío detrás de este inicio.
+        lista.add(suscripcion);
+        envios.execute(() -> iniciar(diario, lista, suscripcion));
+        return emisor;
+    }
+
+    /**
+     * Estadísticas del registro de cambios.
+     *
+     * @return última secuencia por proyecto abierto y cantidad de suscripciones activas.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> ultimas = new TreeMap<>();
+        diarios.forEach((proyecto, diario) -> ultimas.put(proyecto, diario.ultima()));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("projects", ultimas);
+        stats.put("subscribers", suscripciones.values().stream().mapToInt(List::size).sum());
+        return stats;
+    }
+
+    private ProjectChangeLog obtenerDiario(String proyecto) {
+        try {
+            return diarios.computeIfAbsent(proyecto, p -> {
+                Path projectPath = featuresRoot.resolve(p);
+                if (!Files.isDirectory(projectPath)) {
+                    throw new UncheckedIOException(new IOException("El proyecto " + p + " no existe"));
+                }
+                try {
+                    Path carpeta = raiz.resolve(p);
+                    Files.createDirectories(carpeta);
+                    Path archivo = carpeta.resolve(ARCHIVO);
+                    Path anterior = projectPath.resolve(ARCHIVO_ANTERIOR);
+                    if (Files.exists(anterior) && !Files.exists(archivo)) {
+                        Files.move(anterior, archivo);
+                    }
+                    return new ProjectChangeLog(archivo, objectMapper, pathLocks, maxMemoria, maxDisco);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new FileAccessException("No se pudo abrir el diario de cambios de " + proyecto, e.getCause());
+        }
+    }
+
+    private void iniciar(ProjectChangeLog diario, List<Suscripcion> lista, Suscripcion suscripcion) {
+        try {
+            ChangeFeed pagina;
+            do {
+                pagina = diario.desde(suscripcion.ultimaEnviada, MAX_LIMITE);
+                if (pagina.reinicio()) {
+                    suscripcion.emisor.send(SseEmitter.event().name("reset").data(Map.of("ultima", pagina.ultima())));
+                    suscripcion.ultimaEnviada = pagina.ultima();
+                    break;
+                }
+                for (CaseChange cambio : pagina.cambios()) {
+                    enviar(suscripcion, cambio);
+                }
+            } while (pagina.hasta() < pagina.ultima() && !pagina.cambios().isEmpty());
+            suscripcion.iniciada = true;
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.debug("Suscripción de cambios cerrada al iniciar", e);
+            lista.remove(suscripcion);
+            suscripcion.emisor.completeWithError(e);
+        }
+    }
+
+    private void difundir(String proyecto, List<Suscripcion> lista, CaseChange cambio) {
+        for (Suscripcion suscripcion : lista) {
+            if (!suscripcion.iniciada || cambio.secuencia() <= suscripcion.ultimaEnviada) {
+                continue;
+            }
+            try {
+                enviar(suscripcion, cambio);
+            } catch (IOException | IllegalStateException e) {
+                LOGGER.debug("Se descarta una suscripción de cambios de {}", proyecto, e);
+                lista.remove(suscripcion);
+                suscripcion.emisor.completeWithError(e);
+            }
+        }
+    }
+
+    private void enviar(Suscripcion suscripcion, CaseChange cambio) throws IOException {
+        suscripcion.emisor.send(SseEmitter.event()
+                .id(Long.toString(cambio.secuencia()))
+                .name("change")
+                .data(cambio));
+        suscripcion.ultimaEnviada = cambio.secuencia();
+    }
+}
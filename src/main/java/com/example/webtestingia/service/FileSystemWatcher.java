@@ -0,0 +1,196 @@
+package com.example.webtestingia.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Observa árboles de directorios con {@link WatchService} y notifica los cambios de archivos a un listener.
+ * Un único hilo daemon atiende todos los árboles registrados; los subdirectorios nuevos se registran solos.
+ */
+@Component
+public class FileSystemWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemWatcher.class);
+
+    /**
+     * Receptor de los cambios detectados dentro de un árbol observado.
+     */
+    public interface Listener {
+
+        /**
+         * Un archivo fue creado o modificado.
+         *
+         * @param ruta ruta del archivo afectado.
+         */
+        void alCambiar(Path ruta);
+
+        /**
+         * Un archivo o directorio fue eliminado.
+         *
+         * @param ruta ruta eliminada.
+         */
+        void alEliminar(Path ruta);
+
+        /**
+         * Se perdieron eventos (overflow) y el estado debe recalcularse completo.
+         */
+        void alDesbordar();
+
+        /**
+         * El directorio raíz observado dejó de existir o ya no puede observarse.
+         */
+        void alInvalidarRaiz();
+    }
+
+    private record Registro(Path raiz, Path directorio, Listener listener) {
+    }
+
+    private final Map<WatchKey, Registro> registros = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread hilo;
+
+    /**
+     * Registra un árbol completo de directorios para ser observado.
+     *
+     * @param raiz     directorio raíz del árbol.
+     * @param listener receptor de los cambios.
+     * @return true si el árbol quedó observado, false si el sistema de archivos no lo permite.
+     */
+    public boolean observarArbol(Path raiz, Listener listener) {
+        try {
+            iniciarSiEsNecesario();
+            registrarArbol(raiz, raiz, listener);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo observar {}; los cambios externos no se detectarán", raiz, e);
+            return false;
+        }
+    }
+
+    /**
+     * Deja de observar todos los directorios asociados al listener indicado.
+     *
+     * @param listener receptor previamente registrado.
+     */
+    public void cancelar(Listener listener) {
+        registros.entrySet().removeIf(entry -> {
+            if (entry.getValue().listener() == listener) {
+                entry.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Cierra el servicio de observación al apagar la aplicación.
+     */
+    @PreDestroy
+    public synchronized void detener() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.debug("Error al cerrar el WatchService", e);
+        }
+        registros.clear();
+        watchService = null;
+    }
+
+    private synchronized void iniciarSiEsNecesario() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        WatchService servicio = watchService;
+        hilo = new Thread(() -> procesarEventos(servicio), "file-system-watcher");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private void registrarArbol(Path raiz, Path directorio, Listener listener) throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            for (Path dir : rutas.filter(Files::isDirectory).toList()) {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                registros.put(key, new Registro(raiz, dir, listener));
+            }
+        }
+    }
+
+    private void procesarEventos(WatchService servicio) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = servicio.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            Registro registro = registros.get(key);
+            if (registro == null) {
+                key.cancel();
+                continue;
+            }
+            for (WatchEvent<?> evento : key.pollEvents()) {
+                try {
+                    despachar(registro, evento);
+                } catch (Exception e) {
+                    LOGGER.warn("Error al procesar el evento {} en {}", evento.kind().name(), registro.directorio(), e);
+                }
+            }
+            if (!key.reset()) {
+                registros.remove(key);
+                if (registro.directorio().equals(registro.raiz())) {
+                    LOGGER.info("El directorio observado {} ya no está disponible", registro.raiz());
+                    registro.listener().alInvalidarRaiz();
+                }
+            }
+        }
+    }
+
+    private void despachar(Registro registro, WatchEvent<?> evento) throws IOException {
+        WatchEvent.Kind<?> tipo = evento.kind();
+        if (tipo == StandardWatchEventKinds.OVERFLOW) {
+            registro.listener().alDesbordar();
+            return;
+        }
+        Path ruta = registro.directorio().resolve((Path) evento.context());
+        if (tipo == StandardWatchEventKinds.ENTRY_DELETE) {
+            registro.listener().alEliminar(ruta);
+        } else if (Files.isDirectory(ruta)) {
+            if (tipo == StandardWatchEventKinds.ENTRY_CREATE) {
+                registrarArbol(registro.raiz(), ruta, registro.listener());
+                List<Path> archivos;
+                try (Stream<Path> rutas = Files.walk(ruta)) {
+                    archivos = rutas.filter(Files::isRegularFile).toList();
+                }
+                archivos.forEach(registro.listener()::alCambiar);
+            }
+        } else {
+            registro.listener().alCambiar(ruta);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.FieldSelection;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.TestCaseSummary;
+
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Entrada del índice en memoria de un caso .feature: datos de cabecera (primer escenario y tags de
+ * cabecera) más la marca de modificación y el tamaño del archivo con que fueron calculados. Si el
+ * archivo no pudo leerse la entrada sólo conserva la ruta y el motivo en {@code error}.
+ * El detalle que exige leer el archivo completo (lista de escenarios, todos los tags y calidad) se calcula
+ * sólo cuando un listado o una consulta por tags lo solicita y queda memorizado en la entrada; como cada cambio del archivo produce una
+ * entrada nueva, el valor memorizado nunca queda desactualizado. La excepción es la calidad de un caso recién
+ * escrito por la API, que puede ser la del contenido anterior marcada como obsoleta hasta que termine su
+ * análisis diferido, y la calidad descartada al recargar las reglas, que deja el detalle sin calidad hasta
+ * que se vuelve a analizar.
+ */
+final class IndexedCase {
+
+    /**
+     * Datos obtenidos de una lectura completa del archivo.
+     *
+     * @param escenarios nombres de todos los escenarios.
+     * @param tags       todos los tags del archivo en orden de aparición.
+     * @param calidad    resultado del análisis de calidad, o null si se descartó al cambiar las reglas.
+     * @param obsoleta   true si {@code calidad} es la del contenido anterior y el análisis del actual está pendiente.
+     */
+    record Detalle(List<String> escenarios, List<String> tags, QualityResult calidad, boolean obsoleta) {
+
+        Detalle(List<String> escenarios, List<String> tags, QualityResult calidad) {
+            this(escenarios, tags, calidad, false);
+        }
+    }
+
+    private final String ruta;
+    private final String escenario;
+    private final List<String> tagsCabecera;
+    private final FileTime ultimaModificacion;
+    private final long tamano;
+    private final String error;
+    private volatile Detalle detalle;
+
+    IndexedCase(String ruta, String escenario, List<String> tagsCabecera, Detalle detalle,
+                FileTime ultimaModificacion, long tamano, String error) {
+        this.ruta = ruta;
+        this.escenario = escenario;
+        this.tagsCabecera = tagsCabecera;
+        this.detalle = detalle;
+        this.ultimaModificacion = ultimaModificacion;
+        this.tamano = tamano;
+        this.error = error;
+    }
+
+    /**
+     * Crea la entrada de un archivo que no pudo leerse ni analizarse.
+     */
+    static IndexedCase conError(String ruta, FileTime ultimaModificacion, long tamano, String error) {
+        return new IndexedCase(ruta, "", List.of(), null, ultimaModificacion, tamano, error);
+    }
+
+    String ruta() {
+        return ruta;
+    }
+
+    FileTime ultimaModificacion() {
+        return ultimaModificacion;
+    }
+
+    long tamano() {
+        return tamano;
+    }
+
+    String error() {
+        return error;
+    }
+
+    /**
+     * Calidad memorizada, o null si aún no se leyó el archivo completo.
+     */
+    QualityResult calidad() {
+        Detalle actual = detalle;
+        return actual == null ? null : actual.calidad();
+    }
+
+    /**
+     * Indica si la calidad memorizada espera el análisis diferido del contenido actual.
+     */
+    boolean calidadObsoleta() {
+        Detalle actual = detalle;
+        return actual != null && actual.obsoleta();
+    }
+
+    /**
+     * Copia con la calidad ya analizada del contenido actual en lugar de la obsoleta.
+     */
+    IndexedCase conCalidad(QualityResult calidad) {
+        Detalle actual = detalle;
+        return new IndexedCase(ruta, escenario, tagsCabecera, new Detalle(actual.escenarios(), actual.tags(), calidad),
+                ultimaModificacion, tamano, error);
+    }
+
+    /**
+     * Todos los tags del archivo, o null si aún no se leyó el archivo completo.
+     */
+    List<String> tagsCompletos() {
+        Detalle actual = detalle;
+        return actual == null ? null : actual.tags();
+    }
+
+    /**
+     * Indica si falta la lectura completa del archivo.
+     */
+    boolean requiereDetalle() {
+        return error == null && detalle == null;
+    }
+
+    /**
+     * Indica si falta la calidad del contenido actual, porque aún no se leyó el archivo completo o porque se
+     * descartó al cambiar las reglas.
+     */
+    boolean requiereCalidad() {
+        Detalle actual = detalle;
+        return error == null && (actual == null || actual.calidad() == null);
+    }
+
+    /**
+     * Indica si faltan datos del detalle para construir el resumen con los campos solicitados.
+     */
+    boolean requiereLecturaPara(FieldSelection campos) {
+        return campos.incluye("calidad") ? requiereCalidad() : necesitaDetalle(campos) && requiereDetalle();
+    }
+
+    /**
+     * Memoriza el detalle calculado a partir del contenido completo del archivo.
+     */
+    void asignarDetalle(Detalle calculado) {
+        this.detalle = calculado;
+    }
+
+    /**
+     * Copia que conserva la cabecera, los escenarios y los tags pero no la calidad, para volver a analizarla
+     * con otras reglas o tras un análisis diferido fallido.
+     */
+    IndexedCase sinCalidad() {
+        Detalle actual = detalle;
+        Detalle conservado = actual == null ? null : new Detalle(actual.escenarios(), actual.tags(), null);
+        return new IndexedCase(ruta, escenario, tagsCabecera, conservado, ultimaModificacion, tamano, error);
+    }
+
+    /**
+     * Indica si la entrada sigue correspondiendo al archivo con los atributos indicados.
+     * Las entradas con error nunca se consideran vigentes para reintentar su lectura.
+     */
+    boolean vigentePara(FileTime modificacion, long bytes) {
+        return error == null && tamano == bytes && ultimaModificacion.equals(modificacion);
+    }
+
+    /**
+     * Indica si los campos solicitados exigen el detalle completo.
+     */
+    static boolean necesitaDetalle(FieldSelection campos) {
+        return campos.incluye("calidad") || campos.incluye("escenarios") || campos.incluye("tags");
+    }
+
+    /**
+     * Construye el resumen expuesto en los listados con los campos solicitados; los demás quedan en null.
+     */
+    TestCaseSummary toSummary(FieldSelection campos) {
+        TestCaseSummary summary = new TestCaseSummary();
+        summary.setRuta(ruta);
+        if (campos.incluye("escenario")) {
+            summary.setEscenario(escenario);
+        }
+        if (campos.incluye("tagsCabecera")) {
+            summary.setTagsCabecera(tagsCabecera);
+        }
+        Detalle actual = detalle;
+        if (actual != null) {
+            if (campos.incluye("escenarios")) {
+                summary.setEscenarios(actual.escenarios());
+            }
+            if (campos.incluye("tags")) {
+                summary.setTags(actual.tags());
+            }
+            if (campos.incluye("calidad")) {
+                summary.setCalidad(actual.calidad());
+                summary.setCalidadObsoleta(actual.obsoleta() ? Boolean.TRUE : null);
+            }
+        }
+        summary.setError(error);
+        return summary;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.webtestingia.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bloqueos de lectura/escritura por archivo, repartidos en un número fijo de franjas según la ruta
+ * absoluta normalizada, y escritura atómica mediante archivo temporal en la misma carpeta más
+ * {@link StandardCopyOption#ATOMIC_MOVE}. Las lecturas de un mismo archivo corren en paralelo, las
+ * escrituras se serializan y un lector nunca ve un archivo a medio escribir. Lo comparten todos los
+ * servicios que leen o escriben archivos de proyectos, de modo que una misma ruta usa siempre el mismo bloqueo.
+ */
+@Component
+public class PathLocks {
+
+    private final ReadWriteLock[] franjas;
+
+    /**
+     * Constructor con la cantidad de franjas.
+     *
+     * @param cantidad número de bloqueos entre los que se reparten las rutas.
+     */
+    public PathLocks(@Value("${archivos.locks.franjas:256}") int cantidad) {
+        this.franjas = new ReadWriteLock[Math.max(1, cantidad)];
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Bloqueo correspondiente a un archivo. Dos rutas distintas pueden compartir franja, por lo que no debe
+     * tomarse el bloqueo de escritura de una ruta mientras se tiene el de otra.
+     *
+     * @param ruta archivo a proteger.
+     * @return bloqueo de la franja de la ruta.
+     */
+    public ReadWriteLock para(Path ruta) {
+        return franjas[Math.floorMod(ruta.toAbsolutePath().normalize().hashCode(), franjas.length)];
+    }
+
+    /**
+     * Escribe un archivo de forma atómica: el contenido se vuelca en un temporal oculto de la misma carpeta,
+     * se fuerza a disco y luego se mueve sobre el destino. El temporal se crea con los permisos por defecto
+     * del proceso y, si el destino ya existía, recibe sus permisos POSIX, de modo que reemplazar un archivo no
+     * lo vuelve ilegible para otros usuarios. Si el sistema de archivos no admite movimientos atómicos se usa
+     * un reemplazo simple. Debe invocarse con el bloqueo de escritura de la ruta tomado.
+     *
+     * @param destino   archivo a escribir.
+     * @param contenido bytes a escribir.
+     * @throws IOException si falla la escritura o el movimiento.
+     */
+    public void escribirAtomico(Path destino, byte[] contenido) throws IOException {
+        Path carpeta = destino.toAbsolutePath().getParent();
+        Files.createDirectories(carpeta);
+        Path temporal = carpeta.resolve("." + destino.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contenido);
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(true);
+            }
+            copiarPermisos(destino, temporal);
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Escribe texto UTF-8 de forma atómica.
+     *
+     * @param destino   archivo a escribir.
+     * @param contenido texto a escribir.
+     * @throws IOException si falla la escritura o el movimiento.
+     */
+    public void escribirAtomico(Path destino, String contenido) throws IOException {
+        escribirAtomico(destino, contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copia los permisos POSIX del archivo actual al temporal que lo reemplazará; no hace nada si el destino
+     * aún no existe o el sistema de archivos no es POSIX.
+     */
+    private void copiarPermisos(Path destino, Path temporal) throws IOException {
+        try {
+            Files.setPosixFilePermissions(temporal, Files.getPosixFilePermissions(destino));
+        } catch (NoSuchFileException | UnsupportedOperationException e) {
+            // Sin archivo previo o sin permisos POSIX quedan los permisos por defecto del temporal.
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.ImportResult;
+import com.example.webtestingia.model.ProjectMetadata;
+import com.example.webtestingia.model.exception.FileAccessException;
+import com.example.webtestingia.model.exception.ProjectNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Servicio de exportación e importación de proyectos completos como archivos ZIP con sus .feature y su
+ * project.json. Ambos sentidos trabajan en streaming: la exportación copia cada archivo desde disco al ZIP
+ * de salida y la importación lee el ZIP entrada por entrada, con memoria acotada por el tamaño máximo de
+ * entrada y la cantidad de escrituras en curso.
+ */
+@Service
+public class ProjectArchiveService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectArchiveService.class);
+    private static final String METADATA = "project.json";
+
+    private final Path featuresRoot = Paths.get("src/test/resources/features");
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CaseFileService caseFileService;
+    private final PathLocks pathLocks;
+    private final ExecutorService writeExecutor;
+    private final int escriturasEnCurso;
+    private final int maxBytesEntrada;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param caseFileService servicio de casos, que recibe los archivos importados en un solo lote.
+     * @param pathLocks       bloqueos por archivo y escritura atómica compartidos con los demás servicios.
+     * @param concurrencia    máximo de archivos escritos en paralelo durante una importación.
+     * @param maxBytesEntrada tamaño máximo aceptado para cada archivo del ZIP.
+     */
+    public ProjectArchiveService(CaseFileService caseFileService,
+                                 PathLocks pathLocks,
+                                 @Value("${casos.import.concurrencia:4}") int concurrencia,
+                                 @Value("${casos.import.max-bytes-entrada:5242880}") int maxBytesEntrada) {
+        this.caseFileService = caseFileService;
+        this.pathLocks = pathLocks;
+        this.escriturasEnCurso = Math.max(1, concurrencia) * 2;
+        this.maxBytesEntrada = maxBytesEntrada;
+        AtomicInteger hilos = new AtomicInteger();
+        this.writeExecutor = Executors.newFixedThreadPool(Math.max(1, concurrencia), tarea -> {
+            Thread hilo = new Thread(tarea, "case-import-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Libera los hilos de escritura al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        writeExecutor.shutdownNow();
+    }
+
+    /**
+     * Lista los archivos que forman la exportación de un proyecto: project.json primero y luego los .feature
+     * ordenados por ruta. Se calcula antes de empezar a responder para que un proyecto inexistente dé 404.
+     *
+     * @param proyecto nombre del proyecto.
+     * @return rutas absolutas de los archivos a exportar.
+     */
+    public List<Path> listarArchivos(String proyecto) {
+        Path projectPath = featuresRoot.resolve(proyecto);
+        if (!Files.isDirectory(projectPath)) {
+            throw new ProjectNotFoundException("Proyecto no encontrado: " + proyecto);
+        }
+        List<Path> archivos = new ArrayList<>();
+        Path metadata = projectPath.resolve(METADATA);
+        if (Files.exists(metadata)) {
+            archivos.add(metadata);
+        }
+        try (Stream<Path> rutas = Files.walk(projectPath)) {
+            rutas.filter(ProjectCaseIndex::esFeature).sorted().forEach(archivos::add);
+        } catch (IOException e) {
+            throw new FileAccessException("Error al recorrer los casos del proyecto", e);
+        }
+        return archivos;
+    }
+
+    /**
+     * Escribe el ZIP de un proyecto copiando cada archivo desde disco; sólo se mantiene en memoria el búfer
+     * de compresión. Los archivos eliminados después de listarlos se omiten.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param archivos archivos obtenidos con {@link #listarArchivos(String)}.
+     * @param salida   flujo de la respuesta; no se cierra.
+     * @throws IOException si falla la escritura hacia el cliente.
+     */
+    public void exportar(String proyecto, List<Path> archivos, OutputStream salida) throws IOException {
+        Path projectPath = featuresRoot.resolve(proyecto);
+        ZipOutputStream zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+        for (Path archivo : archivos) {
+            Lock lectura = pathLocks.para(archivo).readLock();
+            lectura.lock();
+            try (InputStream contenido = Files.newInputStream(archivo)) {
+                zip.putNextEntry(new ZipEntry(projectPath.relativize(archivo).toString().replace('\\', '/')));
+                contenido.transferTo(zip);
+                zip.closeEntry();
+            } catch (NoSuchFileException e) {
+                LOGGER.debug("{} se eliminó durante la exportación", archivo);
+            } finally {
+                lectura.unlock();
+            }
+        }
+        zip.finish();
+        LOGGER.info("Proyecto {} exportado con {} archivos", proyecto, archivos.size());
+    }
+
+    /**
+     * Importa un ZIP en un proyecto, creándolo si no existe. Cada entrada .feature o project.json se lee
+     * completa (hasta el tamaño máximo) y se escribe en paralelo mientras se sigue leyendo el ZIP; la cantidad
+     * de escrituras pendientes está acotada. Al terminar, el índice de casos se actualiza una sola vez con
+     * todos los archivos escritos.
+     *
+     * @param proyecto nombre del proyecto destino.
+     * @param entrada  cuerpo de la petición con el ZIP.
+     * @return conteo de archivos creados y actualizados, y entradas omitidas.
+     */
+    public ImportResult importar(String proyecto, InputStream entrada) {
+        Path projectPath = crearProyecto(proyecto);
+        Map<String, CaseChangedEvent.Tipo> cambios = new ConcurrentHashMap<>();
+        AtomicInteger creados = new AtomicInteger();
+        AtomicInteger actualizados = new AtomicInteger();
+        List<String> omitidos = new ArrayList<>();
+        List<CompletableFuture<Void>> escrituras = new ArrayList<>();
+        Semaphore cupos = new Semaphore(escriturasEnCurso);
+        RuntimeException error = null;
+        try (ZipInputStream zip = new ZipInputStream(entrada, StandardCharsets.UTF_8)) {
+            Set<Path> vistos = new HashSet<>();
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                String nombre = zipEntry.getName();
+                Path destino = projectPath.resolve(nombre).normalize();
+                if (!destino.startsWith(projectPath)) {
+                    throw new IllegalArgumentException("La entrada " + nombre + " sale del proyecto");
+                }
+                boolean esMetadata = destino.equals(projectPath.resolve(METADATA));
+                if ((!esMetadata && !ProjectCaseIndex.esFeature(destino)) || !vistos.add(destino)) {
+                    omitidos.add(nombre);
+                    continue;
+                }
+                byte[] contenido = leerEntrada(zip, nombre);
+                if (esMetadata) {
+                    validarMetadata(contenido);
+                }
+                cupos.acquire();
+                escrituras.add(CompletableFuture.runAsync(() -> {
+                    boolean existia = escribir(destino, contenido);
+                    (existia ? actualizados : creados).incrementAndGet();
+                    if (!esMetadata) {
+                        cambios.put(projectPath.relativize(destino).toString(),
+                                existia ? CaseChangedEvent.Tipo.ACTUALIZADO : CaseChangedEvent.Tipo.CREADO);
+                    }
+                }, writeExecutor).whenComplete((resultado, falla) -> cupos.release()));
+            }
+        } catch (IOException e) {
+            error = new IllegalArgumentException("El archivo ZIP no se pudo leer: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new FileAccessException("Importación interrumpida para " + proyecto, e);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        // Lo ya escrito se registra aunque la importación falle a mitad de camino.
+        try {
+            CompletableFuture.allOf(escrituras.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (error == null) {
+                error = e.getCause() instanceof RuntimeException causa ? causa : e;
+            }
+        }
+        caseFileService.registrarCambios(proyecto, cambios);
+        if (error != null) {
+            throw error;
+        }
+        LOGGER.info("Proyecto {} importado: {} creados, {} actualizados, {} omitidos",
+                proyecto, creados.get(), actualizados.get(), omitidos.size());
+        return new ImportResult(creados.get(), actualizados.get(), omitidos);
+    }
+
+    private Path crearProyecto(String proyecto) {
+        Path projectPath = featuresRoot.resolve(proyecto).normalize();
+        if (proyecto.isBlank() || !featuresRoot.equals(projectPath.getParent())) {
+            throw new IllegalArgumentException("Nombre de proyecto inválido: " + proyecto);
+        }
+        try {
+            Files.createDirectories(projectPath);
+            return projectPath;
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo crear la carpeta del proyecto " + proyecto, e);
+        }
+    }
+
+    private byte[] leerEntrada(ZipInputStream zip, String nombre) throws IOException {
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int leidos;
+        while ((leidos = zip.read(buffer)) != -1) {
+            if (contenido.size() + leidos > maxBytesEntrada) {
+                throw new IllegalArgumentException("La entrada " + nombre + " supera el tamaño máximo de "
+                        + maxBytesEntrada + " bytes");
+            }
+            contenido.write(buffer, 0, leidos);
+        }
+        return contenido.toByteArray();
+    }
+
+    private void validarMetadata(byte[] contenido) {
+        try {
+            objectMapper.readValue(contenido, ProjectMetadata.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("project.json inválido en el archivo ZIP");
+        }
+    }
+
+    private boolean escribir(Path destino, byte[] contenido) {
+        Lock escritura = pathLocks.para(destino).writeLock();
+        escritura.lock();
+        try {
+            boolean existia = Files.exists(destino);
+            pathLocks.escribirAtomico(destino, contenido);
+            return existia;
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo escribir " + destino, e);
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
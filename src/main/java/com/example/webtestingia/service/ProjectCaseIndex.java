@@ -0,0 +1,560 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.gherkin.TagExpression;
+import com.example.webtestingia.model.FieldSelection;
+import com.example.webtestingia.model.ProjectQuality;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.TestCaseSummary;
+import com.example.webtestingia.model.exception.FileAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de los casos .feature de un proyecto, ordenado por ruta relativa.
+ * Se construye una sola vez y se mantiene con los eventos del {@link FileSystemWatcher}
+ * y con las escrituras realizadas por {@link CaseFileService}. Los cambios detectados en disco se
+ * notifican como {@link CaseChangedEvent}; los de la propia API los notifica el servicio.
+ */
+class ProjectCaseIndex implements FileSystemWatcher.Listener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectCaseIndex.class);
+
+    private final String proyecto;
+    private final Path projectPath;
+    private final BiFunction<Path, BasicFileAttributes, IndexedCase> indexador;
+    private final BiFunction<IndexedCase, Boolean, IndexedCase.Detalle> lectorDetalle;
+    private final Consumer<ProjectCaseIndex> alInvalidar;
+    private final Consumer<CaseChangedEvent> notificador;
+    private final Consumer<CaseQualityEvent> alCalificar;
+    private final Executor ejecutor;
+    private final ConcurrentSkipListMap<String, IndexedCase> casos = new ConcurrentSkipListMap<>();
+    private final TagBitmapIndex tagBitmaps = new TagBitmapIndex();
+    private final QualityAggregate calidad = new QualityAggregate();
+    private final Set<String> sinCalidad = ConcurrentHashMap.newKeySet();
+    private final long creacion = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param proyecto    nombre del proyecto.
+     * @param projectPath carpeta raíz del proyecto.
+     * @param indexador   lee la cabecera de un archivo .feature a partir de sus atributos.
+     * @param lectorDetalle lee el archivo completo de una entrada cuando un listado pide escenarios o calidad;
+     *                      sólo analiza la calidad si el segundo argumento es verdadero.
+     * @param alInvalidar acción a ejecutar cuando la carpeta del proyecto deja de existir.
+     * @param notificador receptor de los cambios detectados en disco.
+     * @param alCalificar receptor de cada resultado de calidad vigente que entra al índice.
+     * @param ejecutor    ejecutor acotado en el que se leen y analizan los archivos durante un recorrido.
+     */
+    ProjectCaseIndex(String proyecto, Path projectPath,
+                     BiFunction<Path, BasicFileAttributes, IndexedCase> indexador,
+                     BiFunction<IndexedCase, Boolean, IndexedCase.Detalle> lectorDetalle,
+                     Consumer<ProjectCaseIndex> alInvalidar,
+                     Consumer<CaseChangedEvent> notificador,
+                     Consumer<CaseQualityEvent> alCalificar,
+                     Executor ejecutor) {
+        this.proyecto = proyecto;
+        this.projectPath = projectPath;
+        this.indexador = indexador;
+        this.lectorDetalle = lectorDetalle;
+        this.alInvalidar = alInvalidar;
+        this.notificador = notificador;
+        this.alCalificar = alCalificar;
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Recorre el proyecto completo e indexa únicamente los archivos nuevos o modificados.
+     * La lectura y el análisis de cada archivo se reparten en el ejecutor; el orden del índice no
+     * depende del orden en que terminen.
+     */
+    void reconstruir() {
+        reconstruir(false);
+    }
+
+    private void reconstruir(boolean notificar) {
+        List<Path> archivos = new ArrayList<>();
+        try {
+            Files.walkFileTree(projectPath, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (esFeature(file)) {
+                        archivos.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    // Los temporales de las escrituras atómicas pueden desaparecer mientras se recorre la carpeta.
+                    if (e instanceof NoSuchFileException && !file.equals(projectPath)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    throw e;
+                }
+            });
+        } catch (IOException e) {
+            throw new FileAccessException("Error al recorrer los casos del proyecto", e);
+        }
+        Set<String> vigentes = new HashSet<>();
+        for (Path casePath : archivos) {
+            vigentes.add(rutaRelativa(casePath));
+        }
+        List<CaseChangedEvent> cambios = new ArrayList<>(actualizarTodos(archivos));
+        for (String ruta : new ArrayList<>(casos.keySet())) {
+            if (!vigentes.contains(ruta) && quitar(ruta) != null) {
+                cambios.add(new CaseChangedEvent(proyecto, ruta, CaseChangedEvent.Tipo.ELIMINADO));
+            }
+        }
+        if (notificar) {
+            cambios.forEach(notificador);
+        }
+        LOGGER.info("Índice de {} construido con {} casos", proyecto, casos.size());
+    }
+
+    /**
+     * Reindexa varios archivos en paralelo en el ejecutor y espera a que terminen todos.
+     *
+     * @param archivos rutas de archivos .feature nuevos, modificados o eliminados.
+     * @return cambios aplicados, sin los archivos cuya entrada seguía vigente.
+     */
+    Collection<CaseChangedEvent> actualizarTodos(Collection<Path> archivos) {
+        Queue<CaseChangedEvent> cambios = new ConcurrentLinkedQueue<>();
+        CompletableFuture<?>[] tareas = archivos.stream()
+                .map(casePath -> CompletableFuture.runAsync(() -> {
+                    CaseChangedEvent cambio = actualizar(casePath);
+                    if (cambio != null) {
+                        cambios.add(cambio);
+                    }
+                }, ejecutor))
+                .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture.allOf(tareas).join();
+        return cambios;
+    }
+
+    /**
+     * Reindexa un archivo si su fecha de modificación o tamaño cambiaron respecto a la entrada actual.
+     * Un archivo ilegible queda registrado como entrada con error en lugar de interrumpir el recorrido.
+     *
+     * @param casePath ruta del archivo .feature.
+     * @return el cambio aplicado, o null si la entrada seguía vigente.
+     */
+    CaseChangedEvent actualizar(Path casePath) {
+        String ruta = rutaRelativa(casePath);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(casePath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return quitar(ruta) == null ? null : new CaseChangedEvent(proyecto, ruta, CaseChangedEvent.Tipo.ELIMINADO);
+        } catch (IOException e) {
+            LOGGER.warn("No se pudieron leer los atributos de {}", casePath, e);
+            return cambio(ruta, guardar(IndexedCase.conError(ruta, null, -1, "No se pudo leer el caso: " + e.getMessage())));
+        }
+        IndexedCase actual = casos.get(ruta);
+        if (actual != null && actual.vigentePara(attrs.lastModifiedTime(), attrs.size())) {
+            return null;
+        }
+        IndexedCase nueva;
+        try {
+            nueva = indexador.apply(casePath, attrs);
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudo indexar el caso {}", casePath, e);
+            nueva = IndexedCase.conError(ruta, attrs.lastModifiedTime(), attrs.size(), e.getMessage());
+        }
+        IndexedCase anterior;
+        synchronized (tagBitmaps) {
+            // Una escritura de la API pudo registrar este mismo estado mientras se leía el archivo.
+            IndexedCase registrada = casos.get(ruta);
+            if (registrada != null && registrada.vigentePara(attrs.lastModifiedTime(), attrs.size())) {
+                return null;
+            }
+            anterior = guardar(nueva);
+        }
+        publicar(calificacion(anterior, nueva));
+        return cambio(ruta, anterior);
+    }
+
+    /**
+     * Guarda una entrada manteniendo el índice de tags y los agregados de calidad: sólo las entradas con
+     * detalle aportan sus tags y su calidad; las que no tienen calidad quedan pendientes hasta que una consulta
+     * lea su detalle.
+     * Cada cambio descuenta la entrada anterior y suma la nueva, sin recorrer el resto. No notifica la calidad:
+     * quien guarda publica {@link #calificacion} después de soltar el monitor.
+     */
+    private IndexedCase guardar(IndexedCase entrada) {
+        synchronized (tagBitmaps) {
+            IndexedCase anterior = casos.put(entrada.ruta(), entrada);
+            version.incrementAndGet();
+            if (anterior != null) {
+                calidad.quitar(anterior.calidad());
+            }
+            calidad.agregar(entrada.calidad());
+            if (entrada.tagsCompletos() != null) {
+                tagBitmaps.asignar(entrada.ruta(), entrada.tagsCompletos());
+            } else {
+                tagBitmaps.quitar(entrada.ruta());
+            }
+            if (entrada.requiereCalidad()) {
+                sinCalidad.add(entrada.ruta());
+            } else {
+                sinCalidad.remove(entrada.ruta());
+            }
+            return anterior;
+        }
+    }
+
+    /**
+     * Evento de una calidad vigente distinta de la que tenía la entrada reemplazada, o null si no hay nada
+     * que notificar.
+     */
+    private CaseQualityEvent calificacion(IndexedCase anterior, IndexedCase entrada) {
+        QualityResult nueva = entrada.calidad();
+        if (nueva == null || entrada.calidadObsoleta() || (anterior != null && anterior.calidad() == nueva)) {
+            return null;
+        }
+        return new CaseQualityEvent(proyecto, entrada.ruta(), nueva);
+    }
+
+    /**
+     * Notifica una calidad nueva. Los receptores escriben el historial, así que nunca se invoca con el monitor
+     * del índice ni el bloqueo de una ruta tomados.
+     */
+    private void publicar(CaseQualityEvent evento) {
+        if (evento != null) {
+            alCalificar.accept(evento);
+        }
+    }
+
+    private IndexedCase quitar(String ruta) {
+        synchronized (tagBitmaps) {
+            tagBitmaps.quitar(ruta);
+            sinCalidad.remove(ruta);
+            IndexedCase anterior = casos.remove(ruta);
+            if (anterior != null) {
+                version.incrementAndGet();
+                calidad.quitar(anterior.calidad());
+            }
+            return anterior;
+        }
+    }
+
+    private CaseChangedEvent cambio(String ruta, IndexedCase anterior) {
+        return new CaseChangedEvent(proyecto, ruta,
+                anterior == null ? CaseChangedEvent.Tipo.CREADO : CaseChangedEvent.Tipo.ACTUALIZADO);
+    }
+
+    /**
+     * Registra una entrada ya calculada, evitando volver a leer el archivo. Se invoca con el bloqueo de escritura
+     * de la ruta tomado, por lo que la calidad nueva no se notifica aquí: se devuelve para publicarla al soltarlo.
+     *
+     * @return calidad vigente nueva a publicar, o null.
+     */
+    CaseQualityEvent registrar(IndexedCase entrada) {
+        return calificacion(guardar(entrada), entrada);
+    }
+
+    /**
+     * Calidad memorizada de un caso, aunque esté obsoleta.
+     *
+     * @param ruta ruta relativa del caso.
+     * @return calidad, o null si el caso no está o aún no se leyó completo.
+     */
+    QualityResult calidad(String ruta) {
+        IndexedCase caso = casos.get(ruta);
+        return caso == null ? null : caso.calidad();
+    }
+
+    /**
+     * Calidad de un caso sólo si está marcada como obsoleta a la espera del análisis diferido.
+     *
+     * @param ruta ruta relativa del caso.
+     * @return calidad del contenido anterior, o null.
+     */
+    QualityResult calidadObsoleta(String ruta) {
+        IndexedCase caso = casos.get(ruta);
+        return caso != null && caso.calidadObsoleta() ? caso.calidad() : null;
+    }
+
+    /**
+     * Reemplaza la calidad obsoleta de un caso por la del análisis diferido de su contenido actual. Se ignora si
+     * la entrada ya cambió: el archivo se volvió a escribir, se leyó completo desde disco o se descartó su calidad.
+     * Si el análisis falló, se descarta la calidad para que la siguiente consulta vuelva a leer el archivo.
+     *
+     * @param ruta         ruta relativa del caso.
+     * @param modificacion fecha de modificación del contenido analizado.
+     * @param tamano       tamaño del contenido analizado.
+     * @param resultado    calidad del contenido, o null si el análisis falló.
+     */
+    void completarCalidad(String ruta, FileTime modificacion, long tamano, QualityResult resultado) {
+        CaseQualityEvent evento = null;
+        synchronized (tagBitmaps) {
+            IndexedCase caso = casos.get(ruta);
+            if (caso != null && caso.calidadObsoleta() && caso.vigentePara(modificacion, tamano)) {
+                IndexedCase nueva = resultado == null ? caso.sinCalidad() : caso.conCalidad(resultado);
+                evento = calificacion(guardar(nueva), nueva);
+            }
+        }
+        publicar(evento);
+    }
+
+    /**
+     * Elimina la entrada de un archivo o todas las entradas bajo un directorio.
+     *
+     * @param ruta ruta del archivo o directorio eliminado.
+     * @return rutas relativas de las entradas eliminadas.
+     */
+    List<String> eliminar(Path ruta) {
+        String relativa = rutaRelativa(ruta);
+        List<String> eliminadas = new ArrayList<>();
+        if (quitar(relativa) != null) {
+            eliminadas.add(relativa);
+        }
+        String prefijo = relativa + ruta.getFileSystem().getSeparator();
+        for (String hija : new ArrayList<>(casos.subMap(prefijo, true, prefijo + Character.MAX_VALUE, false).keySet())) {
+            if (quitar(hija) != null) {
+                eliminadas.add(hija);
+            }
+        }
+        return eliminadas;
+    }
+
+    /**
+     * Devuelve los resúmenes de todos los casos ordenados por ruta con los campos solicitados.
+     * Sólo se accede a disco si se piden escenarios o calidad y alguna entrada aún no los tiene calculados.
+     *
+     * @param campos campos a incluir en cada resumen.
+     * @param filtro expresión de tags que deben cumplir los casos, o null para todos.
+     */
+    List<TestCaseSummary> listar(FieldSelection campos, TagExpression filtro) {
+        Collection<IndexedCase> entradas = filtro == null ? casos.values() : seleccionar(filtro, null);
+        if (IndexedCase.necesitaDetalle(campos)) {
+            completarDetalle(entradas, campos);
+        }
+        return entradas.stream().map(caso -> caso.toSummary(campos)).toList();
+    }
+
+    /**
+     * Rutas de los casos cuyos tags cumplen la expresión, ordenadas.
+     *
+     * @param filtro expresión de tags.
+     * @return rutas relativas seleccionadas.
+     */
+    List<String> seleccionarRutas(TagExpression filtro) {
+        return seleccionar(filtro, null).stream().map(IndexedCase::ruta).toList();
+    }
+
+    /**
+     * Resuelve una expresión de tags con el índice de mapas de bits. La primera consulta lee escenarios y
+     * tags de los casos que aún no los tienen, sin analizar su calidad; las siguientes sólo combinan mapas
+     * de bits.
+     */
+    private List<IndexedCase> seleccionar(TagExpression filtro, String despuesDe) {
+        completarDetalle(casos.values(), false);
+        List<String> rutas = new ArrayList<>(tagBitmaps.seleccionar(filtro));
+        rutas.sort(null);
+        List<IndexedCase> seleccion = new ArrayList<>(rutas.size());
+        for (String ruta : rutas) {
+            IndexedCase caso = casos.get(ruta);
+            if (caso != null && (despuesDe == null || ruta.compareTo(despuesDe) > 0)) {
+                seleccion.add(caso);
+            }
+        }
+        return seleccion;
+    }
+
+    /**
+     * Devuelve hasta {@code limite} resúmenes con ruta estrictamente posterior a {@code despuesDe}.
+     * El detalle sólo se lee para las entradas de la página.
+     *
+     * @param despuesDe última ruta entregada en la página anterior, o null para empezar.
+     * @param limite    cantidad máxima de resúmenes.
+     * @param campos    campos a incluir en cada resumen.
+     * @param filtro    expresión de tags que deben cumplir los casos, o null para todos.
+     * @return resúmenes ordenados por ruta.
+     */
+    List<TestCaseSummary> pagina(String despuesDe, int limite, FieldSelection campos, TagExpression filtro) {
+        Collection<IndexedCase> desde;
+        if (filtro != null) {
+            desde = seleccionar(filtro, despuesDe);
+        } else {
+            desde = (despuesDe == null ? casos : casos.tailMap(despuesDe, false)).values();
+        }
+        List<IndexedCase> entradas = desde.stream().limit(limite).toList();
+        if (IndexedCase.necesitaDetalle(campos)) {
+            completarDetalle(entradas, campos);
+        }
+        return entradas.stream().map(caso -> caso.toSummary(campos)).toList();
+    }
+
+    /**
+     * Recorre los resúmenes de forma perezosa, en orden de ruta, sin materializar el listado completo.
+     * Si se piden escenarios o calidad, el detalle se lee a medida que se consume cada entrada.
+     */
+    Stream<TestCaseSummary> recorrer(FieldSelection campos, TagExpression filtro) {
+        boolean conDetalle = IndexedCase.necesitaDetalle(campos);
+        Collection<IndexedCase> entradas = filtro == null ? casos.values() : seleccionar(filtro, null);
+        return entradas.stream().map(caso -> {
+            if (conDetalle && caso.requiereLecturaPara(campos)) {
+                leerDetalle(caso, campos.incluye("calidad"));
+            }
+            return caso.toSummary(campos);
+        });
+    }
+
+    private void completarDetalle(Collection<IndexedCase> entradas, FieldSelection campos) {
+        completarDetalle(entradas, campos.incluye("calidad"));
+    }
+
+    /**
+     * Lee en el ejecutor el detalle de las entradas a las que les falta. Sin {@code conCalidad} sólo se
+     * tokeniza el archivo y la calidad queda pendiente para la primera consulta que la pida.
+     */
+    private void completarDetalle(Collection<IndexedCase> entradas, boolean conCalidad) {
+        Predicate<IndexedCase> pendiente = conCalidad ? IndexedCase::requiereCalidad : IndexedCase::requiereDetalle;
+        CompletableFuture<?>[] tareas = entradas.stream()
+                .filter(pendiente)
+                .map(caso -> CompletableFuture.runAsync(() -> leerDetalle(caso, conCalidad), ejecutor))
+                .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture.allOf(tareas).join();
+    }
+
+    private void leerDetalle(IndexedCase caso, boolean conCalidad) {
+        try {
+            IndexedCase.Detalle detalle = lectorDetalle.apply(caso, conCalidad);
+            synchronized (tagBitmaps) {
+                // Con calidad se completa tanto un detalle ausente como uno al que se le descartó la calidad;
+                // sin ella sólo un detalle ausente, y la entrada sigue pendiente de calidad.
+                if (conCalidad ? !caso.requiereCalidad() : !caso.requiereDetalle()) {
+                    return;
+                }
+                caso.asignarDetalle(detalle);
+                if (casos.get(caso.ruta()) != caso) {
+                    return;
+                }
+                tagBitmaps.asignar(caso.ruta(), detalle.tags());
+                if (!conCalidad) {
+                    return;
+                }
+                calidad.agregar(detalle.calidad());
+                sinCalidad.remove(caso.ruta());
+            }
+            // Primera calidad del contenido actual: lectura en frío, precarga, listado o nuevas reglas.
+            publicar(new CaseQualityEvent(proyecto, caso.ruta(), detalle.calidad()));
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudo leer el detalle de {}", caso.ruta(), e);
+            synchronized (tagBitmaps) {
+                if (casos.get(caso.ruta()) == caso) {
+                    guardar(IndexedCase.conError(caso.ruta(), caso.ultimaModificacion(), caso.tamano(), e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Agregados de calidad del proyecto. Sólo se leen los casos que aún no tienen calidad (todos en la
+     * primera consulta, luego sólo los que cambiaron desde la anterior o tras recargar las reglas); el resto
+     * ya está agregado.
+     *
+     * @return copia de los agregados.
+     */
+    ProjectQuality resumenCalidad() {
+        List<IndexedCase> pendientes = new ArrayList<>(sinCalidad.size());
+        for (String ruta : sinCalidad) {
+            IndexedCase caso = casos.get(ruta);
+            if (caso != null) {
+                pendientes.add(caso);
+            }
+        }
+        completarDetalle(pendientes, true);
+        synchronized (tagBitmaps) {
+            return calidad.resumen(casos.size());
+        }
+    }
+
+    /**
+     * Descarta la calidad memorizada de todas las entradas porque cambiaron las reglas de calidad. Las entradas
+     * se reemplazan por copias que conservan escenarios y tags, de modo que los listados sin calidad y las
+     * consultas por tags siguen sin leer archivos; sólo la siguiente consulta que pida calidad vuelve a leerlas.
+     * Un detalle que se estuviera leyendo con las reglas anteriores queda asignado a la entrada reemplazada y no
+     * se agrega.
+     */
+    void descartarCalidad() {
+        synchronized (tagBitmaps) {
+            for (IndexedCase caso : casos.values()) {
+                if (caso.calidad() != null) {
+                    guardar(caso.sinCalidad());
+                }
+            }
+        }
+    }
+
+    /**
+     * Identificador de la versión actual del índice: cambia con cada alta, modificación o baja de un caso.
+     * Incluye el instante de creación del índice para no repetirse tras reiniciar la aplicación.
+     */
+    String huella() {
+        return Long.toHexString(creacion) + "." + version.get();
+    }
+
+    String rutaRelativa(Path casePath) {
+        return projectPath.relativize(casePath).toString();
+    }
+
+    @Override
+    public void alCambiar(Path ruta) {
+        if (esFeature(ruta)) {
+            CaseChangedEvent cambio = actualizar(ruta);
+            if (cambio != null) {
+                notificador.accept(cambio);
+            }
+        }
+    }
+
+    @Override
+    public void alEliminar(Path ruta) {
+        for (String eliminada : eliminar(ruta)) {
+            notificador.accept(new CaseChangedEvent(proyecto, eliminada, CaseChangedEvent.Tipo.ELIMINADO));
+        }
+    }
+
+    @Override
+    public void alDesbordar() {
+        LOGGER.warn("Se perdieron eventos del sistema de archivos para {}; se reconstruye el índice", proyecto);
+        reconstruir(true);
+    }
+
+    @Override
+    public void alInvalidarRaiz() {
+        alInvalidar.accept(this);
+    }
+
+    static boolean esFeature(Path path) {
+        return path.toString().endsWith(".feature");
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.CaseChange;
+import com.example.webtestingia.model.ChangeFeed;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Diario de cambios de un proyecto: asigna a cada alta, modificación o baja de un caso una secuencia creciente,
+ * conserva en memoria los últimos cambios y los agrega como líneas JSON a un archivo oculto dentro del proyecto.
+ * Al abrirse continúa la secuencia guardada en el archivo; cuando el archivo supera en la mitad su máximo de
+ * líneas se reescribe conservando sólo las más recientes. Los métodos están sincronizados.
+ */
+final class ProjectChangeLog implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectChangeLog.class);
+
+    private final Path archivo;
+    private final ObjectMapper objectMapper;
+    private final PathLocks pathLocks;
+    private final int maxMemoria;
+    private final int maxDisco;
+    private final Deque<CaseChange> recientes = new ArrayDeque<>();
+    private long ultima;
+    private long primeraEnDisco;
+    private int lineasEnDisco;
+    private BufferedWriter escritor;
+
+    ProjectChangeLog(Path archivo, ObjectMapper objectMapper, PathLocks pathLocks, int maxMemoria, int maxDisco) throws IOException {
+        this.archivo = archivo;
+        this.objectMapper = objectMapper;
+        this.pathLocks = pathLocks;
+        this.maxMemoria = Math.max(1, maxMemoria);
+        this.maxDisco = Math.max(this.maxMemoria, maxDisco);
+        cargar();
+    }
+
+    /**
+     * Registra un cambio con la siguiente secuencia. Si el archivo no puede escribirse el cambio queda sólo
+     * en memoria y se reintenta abrir el archivo con el siguiente.
+     *
+     * @param ruta ruta relativa del caso.
+     * @param tipo tipo de cambio.
+     * @return cambio registrado.
+     */
+    synchronized CaseChange registrar(String ruta, String tipo) {
+        CaseChange cambio = new CaseChange(++ultima, ruta, tipo, Instant.now());
+        recientes.addLast(cambio);
+        if (recientes.size() > maxMemoria) {
+            recientes.removeFirst();
+        }
+        try {
+            if (escritor == null) {
+                escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            escritor.write(objectMapper.writeValueAsString(cambio));
+            escritor.newLine();
+            escritor.flush();
+            if (lineasEnDisco++ == 0) {
+                primeraEnDisco = cambio.secuencia();
+            }
+            if (lineasEnDisco > maxDisco + maxDisco / 2) {
+                compactar();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo guardar el cambio {} en {}", cambio.secuencia(), archivo, e);
+            cerrarEscritor();
+        }
+        return cambio;
+    }
+
+    /**
+     * Secuencia del último cambio registrado, o 0 si no hay ninguno.
+     */
+    synchronized long ultima() {
+        return ultima;
+    }
+
+    /**
+     * Devuelve los cambios posteriores a una secuencia. Se responden desde memoria cuando están allí y
+     * desde el archivo en caso contrario.
+     *
+     * @param desde  última secuencia conocida por el cliente.
+     * @param limite máximo de cambios a devolver.
+     * @return cambios, o la indicación de reinicio si ya no están disponibles.
+     * @throws IOException si falla la lectura del archivo.
+     */
+    synchronized ChangeFeed desde(long desde, int limite) throws IOException {
+        if (desde > ultima || desde + 1 < primeraDisponible()) {
+            return new ChangeFeed(desde, ultima, ultima, true, List.of());
+        }
+        List<CaseChange> cambios = new ArrayList<>(Math.min(limite, (int) Math.min(Integer.MAX_VALUE, ultima - desde)));
+        if (!recientes.isEmpty() && desde + 1 >= recientes.getFirst().secuencia()) {
+            for (CaseChange cambio : recientes) {
+                if (cambio.secuencia() > desde && cambios.size() < limite) {
+                    cambios.add(cambio);
+                }
+            }
+        } else if (desde < ultima) {
+            try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                String linea;
+                while (cambios.size() < limite && (linea = lector.readLine()) != null) {
+                    CaseChange cambio = interpretar(linea);
+                    if (cambio != null && cambio.secuencia() > desde) {
+                        cambios.add(cambio);
+                    }
+                }
+            }
+        }
+        long hasta = cambios.isEmpty() ? desde : cambios.get(cambios.size() - 1).secuencia();
+        return new ChangeFeed(desde, hasta, ultima, false, cambios);
+    }
+
+    @Override
+    public synchronized void close() {
+        cerrarEscritor();
+    }
+
+    private long primeraDisponible() {
+        long primera = ultima + 1;
+        if (lineasEnDisco > 0) {
+            primera = primeraEnDisco;
+        }
+        if (!recientes.isEmpty()) {
+            primera = Math.min(primera, recientes.getFirst().secuencia());
+        }
+        return primera;
+    }
+
+    private void cargar() throws IOException {
+        if (!Files.exists(archivo)) {
+            return;
+        }
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                CaseChange cambio = interpretar(linea);
+                if (cambio == null) {
+                    continue;
+                }
+                if (lineasEnDisco++ == 0) {
+                    primeraEnDisco = cambio.secuencia();
+                }
+                ultima = Math.max(ultima, cambio.secuencia());
+                recientes.addLast(cambio);
+                if (recientes.size() > maxMemoria) {
+                    recientes.removeFirst();
+                }
+            }
+        }
+        LOGGER.debug("Diario {} cargado hasta la secuencia {}", archivo, ultima);
+    }
+
+    /**
+     * Reescribe el archivo de forma atómica con los últimos {@code maxDisco} cambios.
+     */
+    private void compactar() throws IOException {
+        cerrarEscritor();
+        Deque<String> conservadas = new ArrayDeque<>(maxDisco);
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                conservadas.addLast(linea);
+                if (conservadas.size() > maxDisco) {
+                    conservadas.removeFirst();
+                }
+            }
+        }
+        StringBuilder contenido = new StringBuilder();
+        for (String linea : conservadas) {
+            contenido.append(linea).append(System.lineSeparator());
+        }
+        pathLocks.escribirAtomico(archivo, contenido.toString());
+        CaseChange primera = conservadas.isEmpty() ? null : interpretar(conservadas.getFirst());
+        lineasEnDisco = conservadas.size();
+        primeraEnDisco = primera == null ? ultima + 1 : primera.secuencia();
+        LOGGER.debug("Diario {} compactado desde la secuencia {}", archivo, primeraEnDisco);
+    }
+
+    /**
+     * Interpreta una línea del archivo; una línea incompleta (por ejemplo, cortada por una caída) se descarta.
+     */
+    private CaseChange interpretar(String linea) {
+        if (linea.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(linea, CaseChange.class);
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Línea inválida en el diario {}: {}", archivo, e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private void cerrarEscritor() {
+        if (escritor == null) {
+            return;
+        }
+        try {
+            escritor.close();
+        } catch (IOException e) {
+            LOGGER.debug("No se pudo cerrar el diario {}", archivo, e);
+        }
+        escritor = null;
+    }
+}
@@ -1,26 +1,44 @@
 package com.example.webtestingia.service;
 
+import com.example.webtestingia.model.FieldSelection;
 import com.example.webtestingia.model.ProjectMetadata;
-import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.ProjectQuality;
 import com.example.webtestingia.model.TestCaseSummary;
 import com.example.webtestingia.model.exception.FileAccessException;
 import com.example.webtestingia.model.exception.ParsingException;
 import com.example.webtestingia.model.exception.ProjectNotFoundException;
+import com.example.webtestingia.quality.QualityAnalyzer;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio encargado de descubrir proyectos en el sistema de archivos y gestionar su metadata.
+ * Los project.json ya interpretados se conservan en memoria y se revalidan con la fecha de modificación y
+ * el tamaño del archivo, por lo que sólo se vuelven a leer cuando cambian.
  */
 @Service
 public class ProjectDiscoveryService {
@@ -29,23 +47,68 @@ public class ProjectDiscoveryService {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Path featuresRoot = Paths.get("src/test/resources/features");
     private final CaseFileService caseFileService;
+    private final QualityAnalyzer qualityAnalyzer;
+    private final PathLocks pathLocks;
+    private final RequestCoalescer requestCoalescer;
+    private final Map<String, MetadataCacheada> cache = new ConcurrentHashMap<>();
+    private final Map<String, ProjectMetadata> pendientes = new ConcurrentHashMap<>();
+    private final ExecutorService metadataExecutor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "project-metadata");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    /**
+     * project.json interpretado junto con la fecha y el tamaño del archivo del que se leyó.
+     */
+    private record MetadataCacheada(FileTime modificacion, long tamano, ProjectMetadata metadata) {
+
+        boolean vigentePara(BasicFileAttributes attrs) {
+            return tamano == attrs.size() && modificacion.equals(attrs.lastModifiedTime());
+        }
+    }
 
     /**
      * Constructor con dependencias requeridas.
      *
      * @param caseFileService servicio de casos para calcular calidad agregada.
+     * @param qualityAnalyzer analizador de calidad, cuya huella de reglas forma parte del ETag del proyecto.
+     * @param pathLocks       bloqueos por archivo y escritura atómica de project.json.
+     * @param requestCoalescer coalescencia de lecturas idénticas concurrentes de un proyecto.
      */
-    public ProjectDiscoveryService(CaseFileService caseFileService) {
+    public ProjectDiscoveryService(CaseFileService caseFileService, QualityAnalyzer qualityAnalyzer, PathLocks pathLocks,
+                                   RequestCoalescer requestCoalescer) {
         this.caseFileService = caseFileService;
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.pathLocks = pathLocks;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Detiene el hilo que crea los project.json por defecto al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        metadataExecutor.shutdownNow();
     }
 
     /**
      * Lista todos los proyectos detectados como carpetas directas dentro del directorio de features.
-     * Si un proyecto no tiene project.json, se crea uno por defecto.
+     * Si un proyecto no tiene project.json, se crea uno por defecto en segundo plano.
      *
      * @return lista de metadatos de proyectos.
      */
     public List<ProjectMetadata> listarProyectos() {
+        return listarProyectos(FieldSelection.de(ProjectMetadata.CAMPOS));
+    }
+
+    /**
+     * Lista los proyectos incluyendo sólo los campos solicitados.
+     *
+     * @param campos campos a incluir en cada metadata.
+     * @return lista de metadatos de proyectos.
+     */
+    public List<ProjectMetadata> listarProyectos(FieldSelection campos) {
         if (!Files.exists(featuresRoot)) {
             try {
                 Files.createDirectories(featuresRoot);
@@ -53,10 +116,13 @@ public class ProjectDiscoveryService {
                 throw new FileAccessException("No se pudo crear el directorio de features", e);
             }
         }
-        try {
-            return Files.list(featuresRoot)
-                    .filter(Files::isDirectory)
-                    .map(path -> leerOCrearMetadata(path.getFileName().toString()))
+        try (Stream<Path> carpetas = Files.list(featuresRoot)) {
+            List<String> proyectos = carpetas.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .toList();
+            cache.keySet().retainAll(proyectos);
+            return proyectos.stream()
+                    .map(proyecto -> leerMetadata(proyecto).proyectar(campos))
                     .collect(Collectors.toList());
         } catch (IOException e) {
             throw new FileAccessException("Error al listar proyectos", e);
@@ -70,20 +136,79 @@ public class ProjectDiscoveryService {
      * @return metadata enriquecida.
      */
     public ProjectMetadata obtenerProyecto(String proyecto) {
+        return obtenerProyecto(proyecto, FieldSelection.de(ProjectMetadata.CAMPOS));
+    }
+
+    /**
+     * Obtiene el metadato de un proyecto calculando sólo los campos solicitados: las rutas de los casos se
+     * listan únicamente si se pide {@code cases}, y la calidad ({@code averageQuality} y {@code quality}) sale
+     * de los agregados que el índice de casos mantiene, sin volver a analizar los casos que no cambiaron.
+     * Las peticiones concurrentes del mismo proyecto con los mismos campos comparten un único cálculo.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param campos   campos a incluir.
+     * @return metadata enriquecida.
+     */
+    public ProjectMetadata obtenerProyecto(String proyecto, FieldSelection campos) {
+        Path projectPath = featuresRoot.resolve(proyecto);
+        if (!Files.exists(projectPath)) {
+            throw new ProjectNotFoundException("El proyecto " + proyecto + " no existe");
+        }
+        return requestCoalescer.compartir("obtenerProyecto", proyecto + "|" + campos.clave(),
+                () -> calcularProyecto(proyecto, campos));
+    }
+
+    private ProjectMetadata calcularProyecto(String proyecto, FieldSelection campos) {
+        ProjectMetadata metadata = leerMetadata(proyecto);
+        if (campos.incluye("cases")) {
+            metadata.setCases(caseFileService.listarCasos(proyecto, FieldSelection.de(Set.of("ruta"))).stream()
+                    .map(TestCaseSummary::getRuta)
+                    .collect(Collectors.toList()));
+        }
+        if (campos.incluye("averageQuality") || campos.incluye("quality")) {
+            ProjectQuality calidad = caseFileService.calidadProyecto(proyecto);
+            metadata.setQuality(calidad);
+            metadata.setAverageQuality(calidad.promedio() == null ? 0.0 : calidad.promedio());
+            LOGGER.info("Proyecto {} cargado con {} casos y calidad promedio {}", proyecto, calidad.casos(), metadata.getAverageQuality());
+        }
+        return metadata.proyectar(campos);
+    }
+
+    /**
+     * Calcula el ETag del detalle de un proyecto sin leer project.json ni los casos: combina la selección de
+     * campos, la fecha y el tamaño de project.json y, sólo si la selección incluye datos de los casos, la
+     * versión del índice de casos y la huella de las reglas de calidad. Así cada proyección tiene su propio
+     * ETag y una revalidación sin campos de casos no obliga a construir el índice del proyecto.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param campos   campos solicitados.
+     * @return ETag entre comillas.
+     */
+    public String etagProyecto(String proyecto, FieldSelection campos) {
         Path projectPath = featuresRoot.resolve(proyecto);
         if (!Files.exists(projectPath)) {
             throw new ProjectNotFoundException("El proyecto " + proyecto + " no existe");
         }
-        ProjectMetadata metadata = leerOCrearMetadata(proyecto);
-        List<TestCaseSummary> casos = caseFileService.listarCasos(proyecto);
-        List<QualityResult> calidades = casos.stream()
-                .map(TestCaseSummary::getCalidad)
-                .filter(java.util.Objects::nonNull)
-                .toList();
-        double promedio = calidades.isEmpty() ? 0.0 : calidades.stream().mapToDouble(QualityResult::getScore).average().orElse(0.0);
-        metadata.setCases(casos.stream().map(TestCaseSummary::getRuta).collect(Collectors.toList()));
-        LOGGER.info("Proyecto {} cargado con {} casos y calidad promedio {}", proyecto, casos.size(), promedio);
-        return metadata;
+        String metadata = "0";
+        Path jsonPath = projectPath.resolve("project.json");
+        try {
+            if (Files.exists(jsonPath)) {
+                BasicFileAttributes attrs = Files.readAttributes(jsonPath, BasicFileAttributes.class);
+                metadata = Long.toHexString(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)) + "-" + Long.toHexString(attrs.size());
+            }
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer project.json de " + proyecto, e);
+        }
+        StringBuilder etag = new StringBuilder("\"")
+                .append(Integer.toHexString(campos.clave().hashCode())).append('-').append(metadata);
+        boolean calidad = campos.incluye("averageQuality") || campos.incluye("quality");
+        if (calidad || campos.incluye("cases")) {
+            etag.append('-').append(caseFileService.versionCasos(proyecto));
+        }
+        if (calidad) {
+            etag.append('-').append(qualityAnalyzer.huellaReglas(), 0, 8);
+        }
+        return etag.append('"').toString();
     }
 
     /**
@@ -96,38 +221,88 @@ public class ProjectDiscoveryService {
     public ProjectMetadata actualizarProyecto(String proyecto, ProjectMetadata metadata) {
         validarMetadata(metadata);
         Path jsonPath = featuresRoot.resolve(proyecto).resolve("project.json");
-        if (!Files.exists(jsonPath)) {
-            throw new ProjectNotFoundException("No existe el project.json para " + proyecto);
-        }
+        Lock escritura = pathLocks.para(jsonPath).writeLock();
+        escritura.lock();
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(jsonPath.toFile(), metadata);
+            if (!Files.exists(jsonPath)) {
+                throw new ProjectNotFoundException("No existe el project.json para " + proyecto);
+            }
+            pathLocks.escribirAtomico(jsonPath, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(metadata));
+            cachear(proyecto, jsonPath, metadata.copia());
             LOGGER.info("project.json actualizado para {}", proyecto);
             return metadata;
         } catch (IOException e) {
             throw new FileAccessException("No se pudo escribir project.json", e);
+        } finally {
+            escritura.unlock();
         }
     }
 
-    private ProjectMetadata leerOCrearMetadata(String proyecto) {
-        Path projectFolder = featuresRoot.resolve(proyecto);
-        Path jsonPath = projectFolder.resolve("project.json");
-        if (!Files.exists(projectFolder)) {
-            throw new ProjectNotFoundException("La carpeta del proyecto no existe: " + proyecto);
-        }
-        if (!Files.exists(jsonPath)) {
-            ProjectMetadata metadata = ProjectMetadata.defaultFor(proyecto);
+    /**
+     * Devuelve una copia de la metadata de un proyecto. Si project.json no cambió desde la última lectura
+     * (misma fecha y tamaño) se usa la versión en memoria; si cambió se vuelve a interpretar con el bloqueo
+     * de lectura. Si no existe, se responde con la metadata por defecto y se programa su creación, de modo
+     * que una petición de lectura nunca escribe archivos.
+     */
+    private ProjectMetadata leerMetadata(String proyecto) {
+        Path jsonPath = featuresRoot.resolve(proyecto).resolve("project.json");
+        try {
+            MetadataCacheada actual = cache.get(proyecto);
+            if (actual != null && actual.vigentePara(Files.readAttributes(jsonPath, BasicFileAttributes.class))) {
+                return actual.metadata().copia();
+            }
+            Lock lectura = pathLocks.para(jsonPath).readLock();
+            lectura.lock();
             try {
-                objectMapper.writerWithDefaultPrettyPrinter().writeValue(jsonPath.toFile(), metadata);
-                LOGGER.warn("Se creó project.json por defecto para {}", proyecto);
-                return metadata;
-            } catch (IOException e) {
-                throw new FileAccessException("No se pudo crear project.json para " + proyecto, e);
+                ProjectMetadata metadata = objectMapper.readValue(jsonPath.toFile(), ProjectMetadata.class);
+                cachear(proyecto, jsonPath, metadata);
+                return metadata.copia();
+            } finally {
+                lectura.unlock();
             }
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return metadataPorDefecto(proyecto).copia();
+        } catch (JsonProcessingException e) {
+            throw new ParsingException("project.json corrupto para " + proyecto, e);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer project.json de " + proyecto, e);
         }
+    }
+
+    private void cachear(String proyecto, Path jsonPath, ProjectMetadata metadata) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(jsonPath, BasicFileAttributes.class);
+        cache.put(proyecto, new MetadataCacheada(attrs.lastModifiedTime(), attrs.size(), metadata));
+    }
+
+    /**
+     * Metadata por defecto de un proyecto sin project.json. La primera vez que se detecta el proyecto se
+     * programa una única escritura en segundo plano; mientras tanto todas las lecturas reciben la misma
+     * metadata, con el mismo id.
+     */
+    private ProjectMetadata metadataPorDefecto(String proyecto) {
+        return pendientes.computeIfAbsent(proyecto, nombre -> {
+            ProjectMetadata metadata = ProjectMetadata.defaultFor(nombre);
+            metadataExecutor.execute(() -> crearMetadata(nombre, metadata));
+            return metadata;
+        });
+    }
+
+    private void crearMetadata(String proyecto, ProjectMetadata metadata) {
+        Path projectFolder = featuresRoot.resolve(proyecto);
+        Path jsonPath = projectFolder.resolve("project.json");
+        Lock escritura = pathLocks.para(jsonPath).writeLock();
+        escritura.lock();
         try {
-            return objectMapper.readValue(jsonPath.toFile(), ProjectMetadata.class);
+            if (Files.isDirectory(projectFolder) && !Files.exists(jsonPath)) {
+                pathLocks.escribirAtomico(jsonPath, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(metadata));
+                cachear(proyecto, jsonPath, metadata);
+                LOGGER.warn("Se creó project.json por defecto para {}", proyecto);
+            }
         } catch (IOException e) {
-            throw new ParsingException("project.json corrupto para " + proyecto, e);
+            LOGGER.error("No se pudo crear project.json para {}", proyecto, e);
+        } finally {
+            pendientes.remove(proyecto);
+            escritura.unlock();
         }
     }
 
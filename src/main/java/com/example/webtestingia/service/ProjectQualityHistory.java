@@ -0,0 +1,746 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.QualityHistory;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.QualityRuleOutcome;
+import com.example.webtestingia.model.QualityTrend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Historial de calidad de un proyecto en segmentos binarios de sólo agregado. Cada segmento tiene una cabecera
+ * de 16 bytes (magia, versión, tamaño de registro y número del último segmento que reemplaza) seguida de
+ * registros de 32 bytes en orden de tiempo: instante en milisegundos (long), número de caso (int), puntaje
+ * (float, NaN si el caso se eliminó) y máscaras de reglas cumplidas y falladas (long). Las rutas y los ids de
+ * regla se guardan una sola vez en un diccionario de texto y los registros usan su número, por lo que cada regla
+ * ocupa un bit y sólo se distinguen las primeras 64.
+ * <p>
+ * Los registros se agregan al segmento activo; al llenarse se sella y se abre otro. Cada segmento sellado se
+ * proyecta en memoria una sola vez, al abrirlo o sellarlo, y las consultas lo recorren sin copiar con búsqueda
+ * binaria por tiempo. Del segmento activo se mantiene una copia en memoria a la que cada consulta sólo agrega,
+ * leyéndolos por el canal, los registros escritos desde la anterior. La compactación reescribe los
+ * segmentos sellados en uno solo conservando, de lo anterior a un límite, sólo el último registro de cada caso.
+ * Registrar y compactar no deben ejecutarse en paralelo con otra compactación; las consultas pueden hacerlo.
+ */
+final class ProjectQualityHistory implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectQualityHistory.class);
+    private static final int MAGIA = 0x51484953;
+    private static final short VERSION = 1;
+    private static final int CABECERA = 16;
+    private static final int REGISTRO = 32;
+    private static final int MAX_REGLAS = Long.SIZE;
+    private static final String ACTIVO = "activo.qh";
+    private static final String EXTENSION = ".qh";
+    private static final String TEMPORAL = ".tmp";
+    private static final String DICCIONARIO = "diccionario.txt";
+
+    private final Path directorio;
+    private final int registrosPorSegmento;
+    private final Map<String, Integer> idsCaso = new HashMap<>();
+    private final Map<String, Integer> bitsRegla = new HashMap<>();
+    private final List<String> reglas = new ArrayList<>();
+    private final ByteBuffer registro = ByteBuffer.allocate(REGISTRO);
+    /**
+     * Último puntaje y máscaras registrados por caso, para no repetir resultados iguales.
+     */
+    private float[] puntajes = new float[0];
+    private long[] cumplidas = new long[0];
+    private long[] falladas = new long[0];
+    private volatile List<Segmento> sellados = List.of();
+    private FileChannel activo;
+    /**
+     * Copia de los registros del segmento activo ya leídos; sólo crece, así que las vistas entregadas siguen
+     * válidas. Al sellar se reemplaza por otra en lugar de reutilizarla.
+     */
+    private ByteBuffer copiaActivo = ByteBuffer.allocate(0);
+    private int registrosCopiados;
+    private BufferedWriter diccionario;
+    private int registrosActivo;
+    private long ultimoTiempo;
+    private int ultimoNumero;
+    private boolean reglasExcedidas;
+
+    /**
+     * Segmento proyectado en memoria, de sólo lectura.
+     */
+    private record Segmento(int numero, long reemplaza, ByteBuffer datos, int registros) {
+
+        long tiempo(int i) {
+            return datos.getLong(CABECERA + i * REGISTRO);
+        }
+
+        int caso(int i) {
+            return datos.getInt(CABECERA + i * REGISTRO + 8);
+        }
+
+        float puntaje(int i) {
+            return datos.getFloat(CABECERA + i * REGISTRO + 12);
+        }
+
+        long cumplidas(int i) {
+            return datos.getLong(CABECERA + i * REGISTRO + 16);
+        }
+
+        long falladas(int i) {
+            return datos.getLong(CABECERA + i * REGISTRO + 24);
+        }
+
+        long primero() {
+            return registros == 0 ? Long.MIN_VALUE : tiempo(0);
+        }
+
+        long ultimo() {
+            return registros == 0 ? Long.MIN_VALUE : tiempo(registros - 1);
+        }
+
+        /**
+         * Primer registro con tiempo mayor o igual al indicado, o {@code registros} si no hay ninguno.
+         */
+        int buscar(long desde) {
+            int bajo = 0;
+            int alto = registros;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (tiempo(medio) < desde) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+    }
+
+    /**
+     * Estado consistente para una consulta: segmentos hasta el último registro escrito y diccionarios a esa altura.
+     */
+    private record Vista(List<Segmento> segmentos, int casos, List<String> reglas) {
+    }
+
+    ProjectQualityHistory(Path directorio, int registrosPorSegmento) throws IOException {
+        this.directorio = directorio;
+        this.registrosPorSegmento = Math.max(1, registrosPorSegmento);
+        Files.createDirectories(directorio);
+        cargarDiccionario();
+        cargarSellados();
+        abrirActivo();
+        for (Segmento segmento : vista().segmentos()) {
+            for (int i = 0; i < segmento.registros(); i++) {
+                if (segmento.caso(i) < idsCaso.size()) {
+                    recordar(segmento.caso(i), segmento.puntaje(i), segmento.cumplidas(i), segmento.falladas(i));
+                }
+            }
+            ultimoTiempo = Math.max(ultimoTiempo, segmento.ultimo());
+        }
+        LOGGER.debug("Historial de calidad {} cargado con {} casos y {} segmentos sellados",
+                directorio, idsCaso.size(), sellados.size());
+    }
+
+    /**
+     * Agrega un resultado de calidad si difiere del último registrado para el caso.
+     *
+     * @param ruta    ruta relativa del caso.
+     * @param calidad resultado del análisis.
+     * @param tiempo  instante del resultado en milisegundos; se ajusta para no retroceder.
+     * @return true si se agregó un registro.
+     * @throws IOException si falla la escritura.
+     */
+    synchronized boolean registrar(String ruta, QualityResult calidad, long tiempo) throws IOException {
+        float puntaje = (float) calidad.getScore();
+        long mascaraCumplidas = mascara(calidad.getPassedRules());
+        long mascaraFalladas = mascara(calidad.getFailedRules());
+        Integer caso = idsCaso.get(ruta);
+        if (caso != null && caso < puntajes.length && puntajes[caso] == puntaje
+                && cumplidas[caso] == mascaraCumplidas && falladas[caso] == mascaraFalladas) {
+            return false;
+        }
+        if (caso == null) {
+            caso = idsCaso.size();
+            escribirDiccionario("C", ruta);
+            idsCaso.put(ruta, caso);
+        }
+        agregar(tiempo, caso, puntaje, mascaraCumplidas, mascaraFalladas);
+        return true;
+    }
+
+    /**
+     * Agrega la eliminación de un caso, que deja de contar en la tendencia del proyecto.
+     *
+     * @param ruta   ruta relativa del caso.
+     * @param tiempo instante de la eliminación en milisegundos.
+     * @return true si el caso tenía calidad registrada.
+     * @throws IOException si falla la escritura.
+     */
+    synchronized boolean registrarEliminacion(String ruta, long tiempo) throws IOException {
+        Integer caso = idsCaso.get(ruta);
+        if (caso == null || caso >= puntajes.length || Float.isNaN(puntajes[caso])) {
+            return false;
+        }
+        agregar(tiempo, caso, Float.NaN, 0L, 0L);
+        return true;
+    }
+
+    /**
+     * Instante del primer registro conservado.
+     *
+     * @return milisegundos desde epoch, o null si el historial está vacío.
+     */
+    synchronized Long primerTiempo() {
+        for (Segmento segmento : sellados) {
+            if (segmento.registros() > 0) {
+                return segmento.primero();
+            }
+        }
+        return registrosActivo == 0 ? null : leerPrimeroActivo();
+    }
+
+    /**
+     * Registros conservados, contando los del segmento activo.
+     */
+    synchronized long registros() {
+        return sellados.stream().mapToLong(Segmento::registros).sum() + registrosActivo;
+    }
+
+    /**
+     * Puntos de un caso con tiempo dentro de un rango, sin sus eliminaciones.
+     *
+     * @param ruta   ruta relativa del caso.
+     * @param desde  inicio del rango en milisegundos.
+     * @param hasta  fin del rango, inclusive.
+     * @param limite máximo de puntos.
+     * @return historial en columnas.
+     * @throws IOException si no se puede leer el segmento activo.
+     */
+    QualityHistory historial(String ruta, long desde, long hasta, int limite) throws IOException {
+        Integer caso;
+        Vista vista;
+        synchronized (this) {
+            caso = idsCaso.get(ruta);
+            vista = vista();
+        }
+        int cantidad = 0;
+        long[] tiempos = new long[Math.min(limite, 1024)];
+        float[] puntos = new float[tiempos.length];
+        long[] fallos = new long[tiempos.length];
+        boolean truncado = false;
+        recorrido:
+        for (Segmento segmento : caso == null ? List.<Segmento>of() : vista.segmentos()) {
+            if (segmento.registros() == 0 || segmento.ultimo() < desde) {
+                continue;
+            }
+            for (int i = segmento.buscar(desde); i < segmento.registros(); i++) {
+                if (segmento.tiempo(i) > hasta) {
+                    break recorrido;
+                }
+                if (segmento.caso(i) != caso || Float.isNaN(segmento.puntaje(i))) {
+                    continue;
+                }
+                if (cantidad == limite) {
+                    truncado = true;
+                    break recorrido;
+                }
+                if (cantidad == tiempos.length) {
+                    int capacidad = (int) Math.min(limite, tiempos.length * 2L);
+                    tiempos = Arrays.copyOf(tiempos, capacidad);
+                    puntos = Arrays.copyOf(puntos, capacidad);
+                    fallos = Arrays.copyOf(fallos, capacidad);
+                }
+                tiempos[cantidad] = segmento.tiempo(i);
+                puntos[cantidad] = segmento.puntaje(i);
+                fallos[cantidad] = segmento.falladas(i);
+                cantidad++;
+            }
+        }
+        return new QualityHistory(ruta, desde, hasta, vista.reglas(), Arrays.copyOf(tiempos, cantidad),
+                Arrays.copyOf(puntos, cantidad), Arrays.copyOf(fallos, cantidad), truncado);
+    }
+
+    /**
+     * Estado del proyecto al final de cada tramo de un rango. Se recorre el historial desde el principio para
+     * conocer el último puntaje de cada caso, pero sólo se emite un valor por tramo.
+     *
+     * @param desde  inicio del rango en milisegundos.
+     * @param hasta  fin del rango, inclusive.
+     * @param tramos cantidad máxima de tramos.
+     * @return promedio, casos y fallos por regla en cada tramo.
+     * @throws IOException si no se puede leer el segmento activo.
+     */
+    QualityTrend tendencia(long desde, long hasta, int tramos) throws IOException {
+        Vista vista = vista();
+        long duracion = hasta - desde + 1;
+        long ancho = Math.max(1, (duracion + tramos - 1) / tramos);
+        int cantidad = (int) ((duracion + ancho - 1) / ancho);
+        long[] tiempos = new long[cantidad];
+        List<Double> promedios = new ArrayList<>(cantidad);
+        int[] conteos = new int[cantidad];
+        int[][] porRegla = new int[vista.reglas().size()][cantidad];
+        float[] actuales = new float[vista.casos()];
+        long[] fallosActuales = new long[vista.casos()];
+        Arrays.fill(actuales, Float.NaN);
+        int[] fallos = new int[MAX_REGLAS];
+        double suma = 0.0;
+        int vigentes = 0;
+        int tramo = 0;
+        long fin = Math.min(hasta, desde + ancho - 1);
+        recorrido:
+        for (Segmento segmento : vista.segmentos()) {
+            for (int i = 0; i < segmento.registros(); i++) {
+                long tiempo = segmento.tiempo(i);
+                if (tiempo > hasta) {
+                    break recorrido;
+                }
+                while (tiempo > fin) {
+                    tiempos[tramo] = fin;
+                    promedios.add(vigentes == 0 ? null : suma / vigentes);
+                    conteos[tramo] = vigentes;
+                    for (int bit = 0; bit < porRegla.length; bit++) {
+                        porRegla[bit][tramo] = fallos[bit];
+                    }
+                    tramo++;
+                    fin = Math.min(hasta, fin + ancho);
+                }
+                int caso = segmento.caso(i);
+                if (caso >= actuales.length) {
+                    continue;
+                }
+                if (!Float.isNaN(actuales[caso])) {
+                    suma -= actuales[caso];
+                    vigentes--;
+                    contarBits(fallos, fallosActuales[caso], -1);
+                }
+                float puntaje = segmento.puntaje(i);
+                actuales[caso] = puntaje;
+                fallosActuales[caso] = Float.isNaN(puntaje) ? 0L : segmento.falladas(i);
+                if (!Float.isNaN(puntaje)) {
+                    suma += puntaje;
+                    vigentes++;
+                    contarBits(fallos, fallosActuales[caso], 1);
+                }
+            }
+        }
+        for (; tramo < cantidad; tramo++) {
+            tiempos[tramo] = fin;
+            promedios.add(vigentes == 0 ? null : suma / vigentes);
+            conteos[tramo] = vigentes;
+            for (int bit = 0; bit < porRegla.length; bit++) {
+                porRegla[bit][tramo] = fallos[bit];
+            }
+            fin = Math.min(hasta, fin + ancho);
+        }
+        Map<String, int[]> fallosPorRegla = new TreeMap<>();
+        for (int bit = 0; bit < porRegla.length; bit++) {
+            fallosPorRegla.put(vista.reglas().get(bit), porRegla[bit]);
+        }
+        return new QualityTrend(desde, hasta, tiempos, promedios, conteos, fallosPorRegla);
+    }
+
+    /**
+     * Reescribe los segmentos sellados en uno solo. De los registros anteriores a {@code limite} se conserva
+     * sólo el último de cada caso, salvo que sea una eliminación; los posteriores se conservan todos. El nuevo
+     * segmento se escribe en un archivo temporal y se renombra antes de borrar los anteriores; si la aplicación
+     * se detiene entre ambos pasos, su cabecera indica al abrir qué segmentos reemplazó.
+     *
+     * @param limite instante en milisegundos antes del cual se reduce el detalle.
+     * @return true si se reescribió algo.
+     * @throws IOException si falla la escritura; los segmentos anteriores quedan intactos.
+     */
+    boolean compactar(long limite) throws IOException {
+        List<Segmento> entrada = sellados;
+        if (entrada.isEmpty()) {
+            return false;
+        }
+        int casos;
+        int numero;
+        synchronized (this) {
+            casos = idsCaso.size();
+            numero = ++ultimoNumero;
+        }
+        int[] ultimoAnterior = new int[casos];
+        Arrays.fill(ultimoAnterior, -1);
+        int posicion = 0;
+        int recientes = 0;
+        for (Segmento segmento : entrada) {
+            for (int i = 0; i < segmento.registros(); i++, posicion++) {
+                if (segmento.caso(i) >= casos) {
+                    continue;
+                }
+                if (segmento.tiempo(i) < limite) {
+                    ultimoAnterior[segmento.caso(i)] = posicion;
+                } else {
+                    recientes++;
+                }
+            }
+        }
+        posicion = 0;
+        int anteriores = 0;
+        for (Segmento segmento : entrada) {
+            for (int i = 0; i < segmento.registros(); i++, posicion++) {
+                if (conservar(segmento, i, posicion, casos, limite, ultimoAnterior) && segmento.tiempo(i) < limite) {
+                    anteriores++;
+                }
+            }
+        }
+        if (entrada.size() == 1 && anteriores + recientes == entrada.get(0).registros()) {
+            return false;
+        }
+        long reemplaza = entrada.stream().mapToInt(Segmento::numero).max().orElse(0);
+        Path temporal = directorio.resolve(nombre(numero) + TEMPORAL);
+        Path destino = directorio.resolve(nombre(numero));
+        try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            escribirTodo(salida, cabecera(reemplaza));
+            ByteBuffer bloque = ByteBuffer.allocate(REGISTRO * 2048);
+            posicion = 0;
+            for (Segmento segmento : entrada) {
+                ByteBuffer fuente = segmento.datos().duplicate();
+                for (int i = 0; i < segmento.registros(); i++, posicion++) {
+                    if (!conservar(segmento, i, posicion, casos, limite, ultimoAnterior)) {
+                        continue;
+                    }
+                    if (!bloque.hasRemaining()) {
+                        escribirTodo(salida, bloque.flip());
+                        bloque.clear();
+                    }
+                    int inicio = CABECERA + i * REGISTRO;
+                    bloque.put(fuente.limit(inicio + REGISTRO).position(inicio));
+                }
+            }
+            escribirTodo(salida, bloque.flip());
+            salida.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        Segmento compactado = mapear(destino, numero);
+        if (compactado == null) {
+            throw new IOException("No se pudo leer el segmento compactado " + destino);
+        }
+        Set<Integer> reemplazados = new HashSet<>();
+        entrada.forEach(segmento -> reemplazados.add(segmento.numero()));
+        synchronized (this) {
+            List<Segmento> lista = new ArrayList<>();
+            lista.add(compactado);
+            sellados.stream().filter(segmento -> !reemplazados.contains(segmento.numero())).forEach(lista::add);
+            sellados = List.copyOf(lista);
+        }
+        for (Segmento segmento : entrada) {
+            borrar(directorio.resolve(nombre(segmento.numero())));
+        }
+        LOGGER.debug("Historial de calidad {} compactado de {} a {} registros", directorio,
+                entrada.stream().mapToLong(Segmento::registros).sum(), compactado.registros());
+        return true;
+    }
+
+    /**
+     * Indica si la compactación conserva un registro: todos los posteriores al límite y, de los anteriores,
+     * el último de cada caso si no es una eliminación. Los registros de casos fuera del diccionario se descartan.
+     */
+    private static boolean conservar(Segmento segmento, int i, int posicion, int casos, long limite, int[] ultimoAnterior) {
+        int caso = segmento.caso(i);
+        if (caso >= casos) {
+            return false;
+        }
+        return segmento.tiempo(i) >= limite
+                || (ultimoAnterior[caso] == posicion && !Float.isNaN(segmento.puntaje(i)));
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            activo.close();
+            diccionario.close();
+        } catch (IOException e) {
+            LOGGER.debug("No se pudo cerrar el historial de calidad {}", directorio, e);
+        }
+    }
+
+    private void agregar(long tiempo, int caso, float puntaje, long mascaraCumplidas, long mascaraFalladas)
+            throws IOException {
+        if (registrosActivo >= registrosPorSegmento) {
+            sellar();
+        }
+        long instante = Math.max(tiempo, ultimoTiempo);
+        registro.clear();
+        registro.putLong(instante).putInt(caso).putFloat(puntaje).putLong(mascaraCumplidas).putLong(mascaraFalladas);
+        long inicio = CABECERA + (long) registrosActivo * REGISTRO;
+        try {
+            escribirTodo(activo, registro.flip());
+        } catch (IOException e) {
+            // Se descarta un registro escrito a medias para que los siguientes queden alineados.
+            try {
+                activo.truncate(inicio);
+                activo.position(inicio);
+            } catch (IOException suprimida) {
+                e.addSuppressed(suprimida);
+            }
+            throw e;
+        }
+        registrosActivo++;
+        ultimoTiempo = instante;
+        recordar(caso, puntaje, mascaraCumplidas, mascaraFalladas);
+    }
+
+    private void recordar(int caso, float puntaje, long mascaraCumplidas, long mascaraFalladas) {
+        if (caso >= puntajes.length) {
+            int capacidad = Math.max(caso + 1, puntajes.length * 2);
+            int anterior = puntajes.length;
+            puntajes = Arrays.copyOf(puntajes, capacidad);
+            Arrays.fill(puntajes, anterior, capacidad, Float.NaN);
+            cumplidas = Arrays.copyOf(cumplidas, capacidad);
+            falladas = Arrays.copyOf(falladas, capacidad);
+        }
+        puntajes[caso] = puntaje;
+        cumplidas[caso] = mascaraCumplidas;
+        falladas[caso] = mascaraFalladas;
+    }
+
+    private long mascara(List<QualityRuleOutcome> resultados) throws IOException {
+        long mascara = 0L;
+        for (QualityRuleOutcome resultado : resultados) {
+            Integer bit = bitsRegla.get(resultado.getId());
+            if (bit == null) {
+                if (reglas.size() == MAX_REGLAS) {
+                    if (!reglasExcedidas) {
+                        reglasExcedidas = true;
+                        LOGGER.warn("El historial de calidad {} ya distingue {} reglas; no se registra {}",
+                                directorio, MAX_REGLAS, resultado.getId());
+                    }
+                    continue;
+                }
+                bit = reglas.size();
+                escribirDiccionario("R", resultado.getId());
+                bitsRegla.put(resultado.getId(), bit);
+                reglas.add(resultado.getId());
+            }
+            mascara |= 1L << bit;
+        }
+        return mascara;
+    }
+
+    private Vista vista() throws IOException {
+        synchronized (this) {
+            List<Segmento> segmentos = new ArrayList<>(sellados);
+            if (registrosActivo > 0) {
+                segmentos.add(new Segmento(0, 0L, leerActivo(), registrosActivo));
+            }
+            return new Vista(segmentos, idsCaso.size(), List.copyOf(reglas));
+        }
+    }
+
+    /**
+     * Completa la copia del segmento activo con los registros escritos desde la última lectura, sin mover la
+     * posición de escritura del canal. La cabecera no se copia.
+     */
+    private ByteBuffer leerActivo() throws IOException {
+        if (registrosCopiados < registrosActivo) {
+            int copiado = CABECERA + registrosCopiados * REGISTRO;
+            int tamano = CABECERA + registrosActivo * REGISTRO;
+            if (copiaActivo.capacity() < tamano) {
+                long maximo = CABECERA + (long) registrosPorSegmento * REGISTRO;
+                int capacidad = (int) Math.max(tamano, Math.min(maximo, 2L * copiaActivo.capacity()));
+                ByteBuffer ampliada = ByteBuffer.allocate(capacidad);
+                if (registrosCopiados > 0) {
+                    ampliada.put(copiaActivo.duplicate().position(0).limit(copiado));
+                }
+                copiaActivo = ampliada;
+            }
+            ByteBuffer destino = copiaActivo.duplicate().limit(tamano).position(copiado);
+            while (destino.hasRemaining()) {
+                if (activo.read(destino, destino.position()) < 0) {
+                    throw new IOException("El segmento activo de " + directorio + " es más corto de lo esperado");
+                }
+            }
+            registrosCopiados = registrosActivo;
+        }
+        return copiaActivo.asReadOnlyBuffer();
+    }
+
+    private long leerPrimeroActivo() {
+        try {
+            ByteBuffer tiempo = ByteBuffer.allocate(Long.BYTES);
+            activo.read(tiempo, CABECERA);
+            return tiempo.getLong(0);
+        } catch (IOException e) {
+            LOGGER.debug("No se pudo leer el segmento activo de {}", directorio, e);
+            return ultimoTiempo;
+        }
+    }
+
+    private void sellar() throws IOException {
+        activo.force(false);
+        activo.close();
+        int numero = ++ultimoNumero;
+        Path sellado = directorio.resolve(nombre(numero));
+        Files.move(directorio.resolve(ACTIVO), sellado, StandardCopyOption.ATOMIC_MOVE);
+        List<Segmento> lista = new ArrayList<>(sellados);
+        lista.add(mapear(sellado, numero));
+        sellados = List.copyOf(lista);
+        copiaActivo = ByteBuffer.allocate(0);
+        registrosCopiados = 0;
+        abrirActivo();
+    }
+
+    private void abrirActivo() throws IOException {
+        activo = FileChannel.open(directorio.resolve(ACTIVO), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long tamano = activo.size();
+        if (tamano < CABECERA) {
+            activo.truncate(0);
+            escribirTodo(activo, cabecera(0L));
+            tamano = CABECERA;
+        } else {
+            ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+            activo.read(cabecera, 0);
+            if (!valida(cabecera)) {
+                activo.close();
+                throw new IOException("Formato desconocido en " + directorio.resolve(ACTIVO));
+            }
+        }
+        long sobrante = (tamano - CABECERA) % REGISTRO;
+        if (sobrante != 0) {
+            // Registro incompleto por una caída durante la escritura.
+            tamano -= sobrante;
+            activo.truncate(tamano);
+        }
+        activo.position(tamano);
+        registrosActivo = (int) ((tamano - CABECERA) / REGISTRO);
+    }
+
+    private void cargarSellados() throws IOException {
+        List<Segmento> encontrados = new ArrayList<>();
+        List<Path> archivos;
+        try (Stream<Path> rutas = Files.list(directorio)) {
+            archivos = rutas.toList();
+        }
+        for (Path archivo : archivos) {
+            String nombre = archivo.getFileName().toString();
+            if (nombre.endsWith(TEMPORAL)) {
+                borrar(archivo);
+                continue;
+            }
+            if (!nombre.endsWith(EXTENSION) || ACTIVO.equals(nombre)) {
+                continue;
+            }
+            int numero;
+            try {
+                numero = Integer.parseInt(nombre.substring(0, nombre.length() - EXTENSION.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            ultimoNumero = Math.max(ultimoNumero, numero);
+            Segmento segmento = mapear(archivo, numero);
+            if (segmento != null) {
+                encontrados.add(segmento);
+            }
+        }
+        long reemplazados = encontrados.stream().mapToLong(Segmento::reemplaza).max().orElse(0L);
+        List<Segmento> vigentes = new ArrayList<>();
+        for (Segmento segmento : encontrados) {
+            if (segmento.numero() <= reemplazados) {
+                // Quedó de una compactación interrumpida antes de borrar sus entradas.
+                borrar(directorio.resolve(nombre(segmento.numero())));
+            } else {
+                vigentes.add(segmento);
+            }
+        }
+        vigentes.sort(Comparator.comparingLong(Segmento::primero).thenComparingInt(Segmento::numero));
+        sellados = List.copyOf(vigentes);
+    }
+
+    private Segmento mapear(Path archivo, int numero) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            ByteBuffer datos = tamano < CABECERA ? null : canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            if (datos == null || !valida(datos)) {
+                LOGGER.warn("Se ignora el segmento de historial inválido {}", archivo);
+                return null;
+            }
+            return new Segmento(numero, datos.getLong(8), datos, (int) ((tamano - CABECERA) / REGISTRO));
+        }
+    }
+
+    private void cargarDiccionario() throws IOException {
+        Path archivo = directorio.resolve(DICCIONARIO);
+        if (Files.exists(archivo)) {
+            try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                String linea;
+                while ((linea = lector.readLine()) != null) {
+                    if (linea.startsWith("C\t")) {
+                        idsCaso.put(linea.substring(2), idsCaso.size());
+                    } else if (linea.startsWith("R\t") && reglas.size() < MAX_REGLAS) {
+                        bitsRegla.put(linea.substring(2), reglas.size());
+                        reglas.add(linea.substring(2));
+                    }
+                }
+            }
+        }
+        diccionario = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Agrega una entrada al diccionario antes de escribir el primer registro que la usa.
+     */
+    private void escribirDiccionario(String tipo, String valor) throws IOException {
+        diccionario.write(tipo + "\t" + valor);
+        diccionario.newLine();
+        diccionario.flush();
+    }
+
+    private static ByteBuffer cabecera(long reemplaza) {
+        return ByteBuffer.allocate(CABECERA).putInt(MAGIA).putShort(VERSION).putShort((short) REGISTRO)
+                .putLong(reemplaza).flip();
+    }
+
+    private static boolean valida(ByteBuffer cabecera) {
+        return cabecera.getInt(0) == MAGIA && cabecera.getShort(4) == VERSION && cabecera.getShort(6) == REGISTRO;
+    }
+
+    private static void escribirTodo(FileChannel canal, ByteBuffer datos) throws IOException {
+        while (datos.hasRemaining()) {
+            canal.write(datos);
+        }
+    }
+
+    private static void contarBits(int[] conteos, long mascara, int delta) {
+        for (long resto = mascara; resto != 0; resto &= resto - 1) {
+            conteos[Long.numberOfTrailingZeros(resto)] += delta;
+        }
+    }
+
+    private static String nombre(int numero) {
+        return String.format("%010d%s", numero, EXTENSION);
+    }
+
+    private void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo borrar {}", archivo, e);
+        }
+    }
+}
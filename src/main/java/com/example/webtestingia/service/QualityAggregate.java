@@ -0,0 +1,66 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.ProjectQuality;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.QualityRuleOutcome;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agregados de calidad de un proyecto que se actualizan al agregar o quitar el resultado de un caso, sin
+ * recorrer los demás: suma para el promedio, conteo por puntaje para mínimo y máximo exactos, fallos por
+ * regla e histograma. No es seguro entre hilos; {@link ProjectCaseIndex} lo modifica bajo su bloqueo de escritura.
+ */
+final class QualityAggregate {
+
+    private static final int TRAMOS = 10;
+
+    private int analizados;
+    private double suma;
+    private final TreeMap<Double, Integer> puntajes = new TreeMap<>();
+    private final Map<String, Integer> fallosPorRegla = new TreeMap<>();
+    private final int[] histograma = new int[TRAMOS];
+
+    void agregar(QualityResult calidad) {
+        if (calidad != null) {
+            aplicar(calidad, 1);
+        }
+    }
+
+    void quitar(QualityResult calidad) {
+        if (calidad != null) {
+            aplicar(calidad, -1);
+        }
+    }
+
+    /**
+     * Copia inmutable de los agregados actuales.
+     *
+     * @param casos cantidad total de casos del proyecto.
+     */
+    ProjectQuality resumen(int casos) {
+        boolean vacio = analizados == 0;
+        return new ProjectQuality(casos, analizados,
+                vacio ? null : suma / analizados,
+                vacio ? null : puntajes.firstKey(),
+                vacio ? null : puntajes.lastKey(),
+                Map.copyOf(fallosPorRegla),
+                Arrays.stream(histograma).boxed().toList());
+    }
+
+    private void aplicar(QualityResult calidad, int delta) {
+        double puntaje = calidad.getScore();
+        analizados += delta;
+        suma += delta * puntaje;
+        puntajes.merge(puntaje, delta, (actual, cambio) -> actual + cambio == 0 ? null : actual + cambio);
+        histograma[Math.min(TRAMOS - 1, Math.max(0, (int) (puntaje * TRAMOS)))] += delta;
+        for (QualityRuleOutcome regla : calidad.getFailedRules()) {
+            fallosPorRegla.merge(regla.getId(), delta, (actual, cambio) -> actual + cambio == 0 ? null : actual + cambio);
+        }
+        if (analizados == 0) {
+            suma = 0;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.FieldSelection;
+import com.example.webtestingia.model.QualityAudit;
+import com.example.webtestingia.model.QualityAuditJob;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.TestCaseSummary;
+import com.example.webtestingia.model.exception.FileAccessException;
+import com.example.webtestingia.model.exception.ProjectNotFoundException;
+import com.example.webtestingia.quality.QualityAnalyzer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Auditorías de calidad de un proyecto o de todos, ejecutadas como trabajos en segundo plano. Los casos se
+ * enumeran desde los índices de proyecto y se reparten en un {@link ForkJoinPool} propio que divide la lista
+ * en mitades hasta tramos pequeños; cada tramo lee y analiza sus casos (reutilizando la caché de resultados
+ * del analizador) y los conteos parciales se combinan al unir las subtareas. El trabajo informa su progreso
+ * y puede cancelarse: los tramos pendientes dejan de analizar y el resultado refleja lo procesado.
+ */
+@Service
+public class QualityAuditService {
+
+    /**
+     * Estados de un trabajo de auditoría.
+     */
+    public enum Estado {
+        EN_CURSO,
+        COMPLETADO,
+        CANCELADO,
+        FALLIDO
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QualityAuditService.class);
+    private static final int MAX_PEORES = 1000;
+    /**
+     * Casos por tramo a partir del cual ya no se divide: suficientes para amortizar la subtarea y pocos para
+     * repartir bien árboles desparejos.
+     */
+    private static final int TRAMO = 32;
+
+    private final Path featuresRoot = Paths.get("src/test/resources/features");
+    private final CaseFileService caseFileService;
+    private final QualityAnalyzer qualityAnalyzer;
+    private final int maxTrabajos;
+    private final ForkJoinPool pool;
+    private final Map<String, Trabajo> trabajos = new LinkedHashMap<>();
+
+    /**
+     * Trabajo en curso o terminado. El progreso se lee desde cualquier hilo; el resultado se asigna una vez.
+     */
+    private static final class Trabajo {
+        private final String id = UUID.randomUUID().toString();
+        private final String proyecto;
+        private final int peores;
+        private final Instant inicio = Instant.now();
+        private final AtomicInteger procesados = new AtomicInteger();
+        private volatile int total;
+        private volatile boolean cancelado;
+        private volatile Estado estado = Estado.EN_CURSO;
+        private volatile long fin;
+        private volatile String error;
+        private volatile QualityAudit resultado;
+
+        private Trabajo(String proyecto, int peores) {
+            this.proyecto = proyecto;
+            this.peores = peores;
+        }
+
+        private QualityAuditJob estado() {
+            long hasta = fin == 0 ? System.currentTimeMillis() : fin;
+            return new QualityAuditJob(id, proyecto, peores, estado.name(), total, procesados.get(), inicio,
+                    hasta - inicio.toEpochMilli(), error, resultado);
+        }
+    }
+
+    /**
+     * Caso a analizar.
+     */
+    private record Objetivo(String proyecto, String ruta) {
+    }
+
+    /**
+     * Analiza un tramo de la lista de casos, dividiéndolo en dos mitades mientras supere {@link #TRAMO}.
+     */
+    private final class Auditoria extends RecursiveTask<QualityAuditTally> {
+        private static final long serialVersionUID = 1L;
+
+        private final Trabajo trabajo;
+        private final List<Objetivo> objetivos;
+        private final int desde;
+        private final int hasta;
+
+        private Auditoria(Trabajo trabajo, List<Objetivo> objetivos, int desde, int hasta) {
+            this.trabajo = trabajo;
+            this.objetivos = objetivos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected QualityAuditTally compute() {
+            if (hasta - desde > TRAMO) {
+                int medio = (desde + hasta) >>> 1;
+                Auditoria izquierda = new Auditoria(trabajo, objetivos, desde, medio);
+                izquierda.fork();
+                QualityAuditTally derecha = new Auditoria(trabajo, objetivos, medio, hasta).compute();
+                return izquierda.join().combinar(derecha);
+            }
+            QualityAuditTally parcial = new QualityAuditTally(trabajo.peores);
+            for (int i = desde; i < hasta && !trabajo.cancelado; i++) {
+                Objetivo objetivo = objetivos.get(i);
+                try {
+                    QualityResult calidad = caseFileService.leerCaso(objetivo.proyecto(), objetivo.ruta()).getCalidad();
+                    parcial.agregar(objetivo.proyecto(), objetivo.ruta(), calidad);
+                } catch (FileAccessException | ProjectNotFoundException e) {
+                    LOGGER.debug("No se pudo auditar {} en {}", objetivo.ruta(), objetivo.proyecto(), e);
+                    parcial.agregarIlegible();
+                }
+                trabajo.procesados.incrementAndGet();
+            }
+            return parcial;
+        }
+    }
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param caseFileService servicio de casos, que enumera los índices y lee cada caso.
+     * @param qualityAnalyzer analizador, del que se informa la huella de reglas usada.
+     * @param paralelismo     hilos de análisis; 0 para usar uno por procesador disponible.
+     * @param maxTrabajos     trabajos terminados que se conservan para consultar su resultado.
+     */
+    public QualityAuditService(CaseFileService caseFileService,
+                               QualityAnalyzer qualityAnalyzer,
+                               @Value("${quality.audit.parallelism:0}") int paralelismo,
+                               @Value("${quality.audit.max-jobs:20}") int maxTrabajos) {
+        this.caseFileService = caseFileService;
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.maxTrabajos = Math.max(1, maxTrabajos);
+        AtomicInteger hilos = new AtomicInteger();
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors(), fj -> {
+            ForkJoinWorkerThread hilo = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(fj);
+            hilo.setName("quality-audit-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }, null, false);
+    }
+
+    /**
+     * Cancela los trabajos en curso al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        synchronized (trabajos) {
+            trabajos.values().forEach(trabajo -> trabajo.cancelado = true);
+        }
+        pool.shutdownNow();
+    }
+
+    /**
+     * Inicia la auditoría de un proyecto, o de todos si {@code proyecto} es null. Si ya hay un trabajo en
+     * curso con el mismo alcance y la misma cantidad de peores casos, se devuelve ese en lugar de repetirlo.
+     *
+     * @param proyecto nombre del proyecto, o null para todos.
+     * @param peores   cantidad de casos de menor puntaje a informar.
+     * @return estado inicial del trabajo.
+     */
+    public QualityAuditJob iniciar(String proyecto, int peores) {
+        if (peores < 0 || peores > MAX_PEORES) {
+            throw new IllegalArgumentException("La cantidad de peores casos debe estar entre 0 y " + MAX_PEORES);
+        }
+        if (proyecto != null && !Files.isDirectory(featuresRoot.resolve(proyecto))) {
+            throw new ProjectNotFoundException("Proyecto no encontrado: " + proyecto);
+        }
+        Trabajo trabajo;
+        synchronized (trabajos) {
+            for (Trabajo existente : trabajos.values()) {
+                if (existente.estado == Estado.EN_CURSO && !existente.cancelado && existente.peores == peores
+                        && Objects.equals(existente.proyecto, proyecto)) {
+                    return existente.estado();
+                }
+            }
+            trabajo = new Trabajo(proyecto, peores);
+            trabajos.put(trabajo.id, trabajo);
+            descartarTerminados();
+        }
+        LOGGER.info("Auditoría de calidad {} iniciada sobre {}", trabajo.id, proyecto == null ? "todos los proyectos" : proyecto);
+        CompletableFuture.runAsync(() -> ejecutar(trabajo), pool);
+        return trabajo.estado();
+    }
+
+    /**
+     * Estado y, si terminó, resultado de un trabajo.
+     *
+     * @param id identificador del trabajo.
+     * @return estado del trabajo.
+     */
+    public QualityAuditJob estado(String id) {
+        return buscar(id).estado();
+    }
+
+    /**
+     * Trabajos conservados, del más antiguo al más reciente, sin sus resultados.
+     *
+     * @return estados de los trabajos.
+     */
+    public List<QualityAuditJob> listar() {
+        synchronized (trabajos) {
+            return trabajos.values().stream().map(Trabajo::estado)
+                    .map(job -> new QualityAuditJob(job.id(), job.proyecto(), job.peores(), job.estado(), job.total(),
+                            job.procesados(), job.inicio(), job.duracionMs(), job.error(), null))
+                    .toList();
+        }
+    }
+
+    /**
+     * Pide la cancelación de un trabajo. Los tramos en curso terminan el caso que analizan y el trabajo queda
+     * {@code CANCELADO} con el resultado parcial; cancelar un trabajo terminado no tiene efecto.
+     *
+     * @param id identificador del trabajo.
+     * @return estado del trabajo tras la solicitud.
+     */
+    public QualityAuditJob cancelar(String id) {
+        Trabajo trabajo = buscar(id);
+        if (trabajo.estado == Estado.EN_CURSO) {
+            trabajo.cancelado = true;
+            LOGGER.info("Cancelación solicitada para la auditoría de calidad {}", id);
+        }
+        return trabajo.estado();
+    }
+
+    private Trabajo buscar(String id) {
+        synchronized (trabajos) {
+            Trabajo trabajo = trabajos.get(id);
+            if (trabajo == null) {
+                throw new ProjectNotFoundException("Auditoría de calidad no encontrada: " + id);
+            }
+            return trabajo;
+        }
+    }
+
+    /**
+     * Quita los trabajos terminados más antiguos que excedan el máximo; los que están en curso se conservan.
+     */
+    private void descartarTerminados() {
+        int sobrantes = trabajos.size() - maxTrabajos;
+        Iterator<Trabajo> iterador = trabajos.values().iterator();
+        while (sobrantes > 0 && iterador.hasNext()) {
+            if (iterador.next().estado != Estado.EN_CURSO) {
+                iterador.remove();
+                sobrantes--;
+            }
+        }
+    }
+
+    /**
+     * Enumera los casos y los analiza en el pool. Se ejecuta dentro del propio pool, por lo que la tarea raíz
+     * se invoca desde un hilo trabajador y participa del reparto.
+     */
+    private void ejecutar(Trabajo trabajo) {
+        try {
+            String huella = qualityAnalyzer.huellaReglas();
+            List<String> proyectos = trabajo.proyecto != null ? List.of(trabajo.proyecto) : listarProyectos();
+            List<Objetivo> objetivos = new ArrayList<>();
+            FieldSelection soloRuta = FieldSelection.de(Set.of("ruta"));
+            for (String proyecto : proyectos) {
+                if (trabajo.cancelado) {
+                    break;
+                }
+                try (Stream<TestCaseSummary> casos = caseFileService.recorrerCasos(proyecto, soloRuta, null)) {
+                    casos.forEach(caso -> objetivos.add(new Objetivo(proyecto, caso.getRuta())));
+                }
+            }
+            trabajo.total = objetivos.size();
+            QualityAuditTally conteo = new Auditoria(trabajo, objetivos, 0, objetivos.size()).invoke();
+            trabajo.resultado = conteo.resultado(proyectos.size(), objetivos.size(), huella);
+            trabajo.fin = System.currentTimeMillis();
+            trabajo.estado = trabajo.cancelado ? Estado.CANCELADO : Estado.COMPLETADO;
+        } catch (RuntimeException e) {
+            LOGGER.error("Falló la auditoría de calidad {}", trabajo.id, e);
+            trabajo.error = e.getMessage();
+            trabajo.fin = System.currentTimeMillis();
+            trabajo.estado = Estado.FALLIDO;
+        }
+        LOGGER.info("Auditoría de calidad {} {} en {} ms: {} de {} casos", trabajo.id, trabajo.estado,
+                trabajo.fin - trabajo.inicio.toEpochMilli(), trabajo.procesados.get(), trabajo.total);
+    }
+
+    private List<String> listarProyectos() {
+        if (!Files.isDirectory(featuresRoot)) {
+            return List.of();
+        }
+        try (Stream<Path> rutas = Files.list(featuresRoot)) {
+            return rutas.filter(Files::isDirectory).map(path -> path.getFileName().toString()).sorted().toList();
+        } catch (IOException e) {
+            throw new FileAccessException("Error al listar proyectos para la auditoría de calidad", e);
+        }
+    }
+}
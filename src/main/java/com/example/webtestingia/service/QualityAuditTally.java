@@ -0,0 +1,120 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.QualityAudit;
+import com.example.webtestingia.model.QualityResult;
+import com.example.webtestingia.model.QualityRuleOutcome;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Conteos parciales de una auditoría de calidad sobre un tramo de casos. Cada subtarea llena el suyo sin
+ * compartirlo y los tramos se combinan con {@link #combinar} al unir las subtareas, por lo que no necesita
+ * sincronización: puntajes para promedio y percentiles exactos, cumplimiento por regla y los peores casos.
+ */
+final class QualityAuditTally {
+
+    private static final Comparator<QualityAudit.Caso> DEL_MEJOR_AL_PEOR = Comparator
+            .comparingDouble(QualityAudit.Caso::puntaje).reversed()
+            .thenComparing(QualityAudit.Caso::proyecto, Comparator.reverseOrder())
+            .thenComparing(QualityAudit.Caso::ruta, Comparator.reverseOrder());
+
+    private final int maxPeores;
+    private double[] puntajes = new double[16];
+    private int analizados;
+    private int ilegibles;
+    private final Map<String, int[]> reglas = new TreeMap<>();
+    /**
+     * Peores casos vistos, con el mejor de ellos en la cabeza para descartarlo cuando llega uno peor.
+     */
+    private final PriorityQueue<QualityAudit.Caso> peores = new PriorityQueue<>(DEL_MEJOR_AL_PEOR);
+
+    QualityAuditTally(int maxPeores) {
+        this.maxPeores = maxPeores;
+    }
+
+    void agregar(String proyecto, String ruta, QualityResult calidad) {
+        if (analizados == puntajes.length) {
+            puntajes = Arrays.copyOf(puntajes, analizados * 2);
+        }
+        puntajes[analizados++] = calidad.getScore();
+        for (QualityRuleOutcome regla : calidad.getPassedRules()) {
+            reglas.computeIfAbsent(regla.getId(), id -> new int[2])[0]++;
+        }
+        for (QualityRuleOutcome regla : calidad.getFailedRules()) {
+            reglas.computeIfAbsent(regla.getId(), id -> new int[2])[1]++;
+        }
+        ofrecer(new QualityAudit.Caso(proyecto, ruta, calidad.getScore(),
+                calidad.getFailedRules().stream().map(QualityRuleOutcome::getId).toList()));
+    }
+
+    void agregarIlegible() {
+        ilegibles++;
+    }
+
+    /**
+     * Suma los conteos de otro tramo a éste.
+     *
+     * @param otro tramo ya terminado.
+     * @return este mismo tramo.
+     */
+    QualityAuditTally combinar(QualityAuditTally otro) {
+        if (analizados + otro.analizados > puntajes.length) {
+            puntajes = Arrays.copyOf(puntajes, analizados + otro.analizados);
+        }
+        System.arraycopy(otro.puntajes, 0, puntajes, analizados, otro.analizados);
+        analizados += otro.analizados;
+        ilegibles += otro.ilegibles;
+        otro.reglas.forEach((id, conteo) -> {
+            int[] propio = reglas.computeIfAbsent(id, clave -> new int[2]);
+            propio[0] += conteo[0];
+            propio[1] += conteo[1];
+        });
+        otro.peores.forEach(this::ofrecer);
+        return this;
+    }
+
+    /**
+     * Resultado final a partir de los conteos combinados.
+     *
+     * @param proyectos cantidad de proyectos incluidos.
+     * @param casos     cantidad de casos encontrados.
+     * @param huella    huella de las reglas con que se analizaron.
+     */
+    QualityAudit resultado(int proyectos, int casos, String huella) {
+        double[] ordenados = Arrays.copyOf(puntajes, analizados);
+        Arrays.sort(ordenados);
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        if (analizados > 0) {
+            percentiles.put("min", ordenados[0]);
+            for (int p : new int[]{10, 25, 50, 75, 90}) {
+                percentiles.put("p" + p, ordenados[Math.max(0, (int) Math.ceil(p / 100.0 * analizados) - 1)]);
+            }
+            percentiles.put("max", ordenados[analizados - 1]);
+        }
+        Map<String, QualityAudit.Regla> porRegla = new LinkedHashMap<>();
+        reglas.forEach((id, conteo) -> porRegla.put(id, new QualityAudit.Regla(conteo[0], conteo[1])));
+        List<QualityAudit.Caso> lista = peores.stream().sorted(DEL_MEJOR_AL_PEOR.reversed()).toList();
+        return new QualityAudit(proyectos, casos, analizados, ilegibles, huella,
+                analizados == 0 ? null : Arrays.stream(ordenados).sum() / analizados,
+                Collections.unmodifiableMap(percentiles), Collections.unmodifiableMap(porRegla), lista);
+    }
+
+    private void ofrecer(QualityAudit.Caso caso) {
+        if (maxPeores == 0) {
+            return;
+        }
+        if (peores.size() < maxPeores) {
+            peores.add(caso);
+        } else if (DEL_MEJOR_AL_PEOR.compare(caso, peores.peek()) > 0) {
+            peores.poll();
+            peores.add(caso);
+        }
+    }
+}
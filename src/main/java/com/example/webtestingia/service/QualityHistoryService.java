@@ -0,0 +1,277 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.QualityHistory;
+import com.example.webtestingia.model.QualityTrend;
+import com.example.webtestingia.model.exception.FileAccessException;
+import com.example.webtestingia.model.exception.ProjectNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Historial de calidad por proyecto para graficar tendencias. Cada {@link CaseQualityEvent} con un resultado
+ * distinto del último registrado para el caso se agrega al {@link ProjectQualityHistory} del proyecto, y cada
+ * eliminación de caso deja de contar desde ese momento. Las escrituras y la compactación periódica se hacen en
+ * un único hilo propio, de modo que el índice que publica los eventos no espera al disco; las consultas leen los
+ * segmentos proyectados en memoria desde el hilo de la petición. La cola de escrituras es acotada: si el disco no
+ * da abasto, los eventos que no caben se descartan y se cuentan en lugar de acumularse en memoria.
+ */
+@Service
+public class QualityHistoryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QualityHistoryService.class);
+    private static final int MAX_LIMITE = 1_000_000;
+    private static final int MAX_TRAMOS = 10_000;
+
+    private final Path featuresRoot = Paths.get("src/test/resources/features");
+    private final Path raiz;
+    private final int registrosPorSegmento;
+    private final long detalleMs;
+    private final Map<String, ProjectQualityHistory> historiales = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService escritor;
+    private final int capacidadCola;
+    private final AtomicInteger enCola = new AtomicInteger();
+    private final LongAdder registrados = new LongAdder();
+    private final LongAdder sinCambios = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+    private final LongAdder compactaciones = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    /**
+     * Escritura sobre el historial de un proyecto.
+     */
+    @FunctionalInterface
+    private interface Escritura {
+        boolean aplicar(ProjectQualityHistory historial) throws IOException;
+    }
+
+    /**
+     * Constructor con la ubicación y el tamaño de los segmentos.
+     *
+     * @param raiz                 carpeta bajo la que se crea una subcarpeta por proyecto.
+     * @param registrosPorSegmento registros del segmento activo antes de sellarlo y abrir otro.
+     * @param diasDetalle          días durante los que se conservan todos los registros; al compactar, de lo
+     *                             anterior queda sólo el último registro de cada caso.
+     * @param intervaloCompactacion milisegundos entre compactaciones.
+     * @param capacidadCola        escrituras en espera antes de descartar las nuevas.
+     */
+    public QualityHistoryService(@Value("${quality.history.path:data/quality-history}") String raiz,
+                                 @Value("${quality.history.segment-records:65536}") int registrosPorSegmento,
+                                 @Value("${quality.history.detail-days:90}") int diasDetalle,
+                                 @Value("${quality.history.compaction-ms:3600000}") long intervaloCompactacion,
+                                 @Value("${quality.history.queue-capacity:10000}") int capacidadCola) {
+        this.raiz = Paths.get(raiz);
+        this.capacidadCola = Math.max(1, capacidadCola);
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.detalleMs = TimeUnit.DAYS.toMillis(Math.max(0, diasDetalle));
+        this.escritor = new ScheduledThreadPoolExecutor(1, tarea -> {
+            Thread hilo = new Thread(tarea, "quality-history");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long intervalo = Math.max(1000, intervaloCompactacion);
+        escritor.scheduleWithFixedDelay(this::compactarTodos, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Termina las escrituras pendientes y cierra los historiales al apagar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        escritor.shutdown();
+        try {
+            if (!escritor.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warn("Se descartan escrituras pendientes del historial de calidad");
+                escritor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        historiales.values().forEach(ProjectQualityHistory::close);
+    }
+
+    /**
+     * Encola el registro de un resultado de calidad en el historial de su proyecto.
+     *
+     * @param evento resultado publicado por el índice del proyecto.
+     */
+    @EventListener
+    public void alCalificar(CaseQualityEvent evento) {
+        long ahora = System.currentTimeMillis();
+        encolar(evento.proyecto(), historial -> historial.registrar(evento.ruta(), evento.calidad(), ahora));
+    }
+
+    /**
+     * Encola la eliminación de un caso en el historial de su proyecto.
+     *
+     * @param evento cambio publicado por {@link CaseFileService}.
+     */
+    @EventListener
+    public void alCambiarCaso(CaseChangedEvent evento) {
+        if (evento.tipo() != CaseChangedEvent.Tipo.ELIMINADO) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        encolar(evento.proyecto(), historial -> historial.registrarEliminacion(evento.ruta(), ahora));
+    }
+
+    /**
+     * Puntos del historial de un caso en un rango de tiempo.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param ruta     ruta relativa del caso.
+     * @param desde    inicio del rango en milisegundos desde epoch; null para el principio.
+     * @param hasta    fin del rango, inclusive; null para el momento actual.
+     * @param limite   máximo de puntos a devolver.
+     * @return historial en columnas.
+     */
+    public QualityHistory historial(String proyecto, String ruta, Long desde, Long hasta, int limite) {
+        if (ruta == null || ruta.isBlank()) {
+            throw new IllegalArgumentException("Se requiere la ruta del caso");
+        }
+        if (limite < 1 || limite > MAX_LIMITE) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMITE);
+        }
+        long inicio = desde == null ? 0L : desde;
+        long fin = hasta == null ? System.currentTimeMillis() : hasta;
+        validarRango(inicio, fin);
+        try {
+            return obtenerHistorial(proyecto).historial(ruta, inicio, fin, limite);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer el historial de calidad de " + proyecto, e);
+        }
+    }
+
+    /**
+     * Tendencia de calidad del proyecto en tramos de igual duración.
+     *
+     * @param proyecto nombre del proyecto.
+     * @param desde    inicio del rango en milisegundos desde epoch; null para el primer registro.
+     * @param hasta    fin del rango, inclusive; null o posterior al momento actual se toma como ahora.
+     * @param tramos   cantidad de tramos.
+     * @return estado del proyecto al final de cada tramo.
+     */
+    public QualityTrend tendencia(String proyecto, Long desde, Long hasta, int tramos) {
+        if (tramos < 1 || tramos > MAX_TRAMOS) {
+            throw new IllegalArgumentException("La cantidad de tramos debe estar entre 1 y " + MAX_TRAMOS);
+        }
+        ProjectQualityHistory historial = obtenerHistorial(proyecto);
+        long ahora = System.currentTimeMillis();
+        long fin = hasta == null ? ahora : Math.min(hasta, ahora);
+        Long primero = historial.primerTiempo();
+        long inicio = desde != null ? desde : primero == null ? fin : Math.min(primero, fin);
+        validarRango(inicio, fin);
+        try {
+            return historial.tendencia(inicio, fin, tramos);
+        } catch (IOException e) {
+            throw new FileAccessException("No se pudo leer el historial de calidad de " + proyecto, e);
+        }
+    }
+
+    /**
+     * Estadísticas del historial de calidad.
+     *
+     * @return proyectos abiertos, registros conservados, escrituras en cola y contadores de escritura, descarte y
+     * compactación.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("projects", historiales.size());
+        stats.put("records", historiales.values().stream().mapToLong(ProjectQualityHistory::registros).sum());
+        stats.put("recorded", registrados.sum());
+        stats.put("unchanged", sinCambios.sum());
+        stats.put("failed", fallidos.sum());
+        stats.put("compactions", compactaciones.sum());
+        stats.put("pending", enCola.get());
+        stats.put("dropped", descartados.sum());
+        return stats;
+    }
+
+    private void validarRango(long desde, long hasta) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("El inicio del rango no puede ser negativo");
+        }
+        if (desde > hasta) {
+            throw new IllegalArgumentException("El inicio del rango no puede ser posterior al fin");
+        }
+    }
+
+    private void encolar(String proyecto, Escritura escritura) {
+        if (enCola.incrementAndGet() > capacidadCola) {
+            enCola.decrementAndGet();
+            descartados.increment();
+            LOGGER.debug("Cola del historial de calidad llena; se descarta un cambio de {}", proyecto);
+            return;
+        }
+        try {
+            escritor.execute(() -> {
+                enCola.decrementAndGet();
+                try {
+                    if (escritura.aplicar(obtenerHistorial(proyecto))) {
+                        registrados.increment();
+                    } else {
+                        sinCambios.increment();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fallidos.increment();
+                    LOGGER.warn("No se pudo registrar la calidad en el historial de {}", proyecto, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            enCola.decrementAndGet();
+            LOGGER.debug("Historial de calidad detenido; no se registra el cambio de {}", proyecto);
+        }
+    }
+
+    private void compactarTodos() {
+        long limite = System.currentTimeMillis() - detalleMs;
+        historiales.forEach((proyecto, historial) -> {
+            try {
+                if (historial.compactar(limite)) {
+                    compactaciones.increment();
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("No se pudo compactar el historial de calidad de {}", proyecto, e);
+            }
+        });
+    }
+
+    private ProjectQualityHistory obtenerHistorial(String proyecto) {
+        ProjectQualityHistory historial = historiales.get(proyecto);
+        if (historial != null) {
+            return historial;
+        }
+        if (!Files.isDirectory(featuresRoot.resolve(proyecto))) {
+            throw new ProjectNotFoundException("Proyecto no encontrado: " + proyecto);
+        }
+        try {
+            return historiales.computeIfAbsent(proyecto, p -> {
+                try {
+                    return new ProjectQualityHistory(raiz.resolve(p), registrosPorSegmento);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new FileAccessException("No se pudo abrir el historial de calidad de " + proyecto, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.webtestingia.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalescencia de peticiones idénticas concurrentes ("single flight"): la primera petición con una clave
+ * calcula el resultado y las que llegan mientras tanto esperan y reciben ese mismo resultado (o la misma
+ * excepción) en lugar de repetir el cálculo. No es una caché: al terminar el cálculo la clave se libera y la
+ * siguiente petición vuelve a calcular. El resultado compartido no debe modificarse después de devolverlo.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+    private final Map<String, Contadores> contadores = new ConcurrentHashMap<>();
+
+    private static final class Contadores {
+        private final LongAdder ejecutadas = new LongAdder();
+        private final LongAdder coalescidas = new LongAdder();
+    }
+
+    /**
+     * Ejecuta el cálculo o se une al que ya esté en curso para la misma clave.
+     *
+     * @param grupo   tipo de petición, usado para agrupar las métricas.
+     * @param clave   identifica peticiones equivalentes dentro del grupo.
+     * @param calculo cálculo a ejecutar si no hay uno en curso.
+     * @param <T>     tipo del resultado.
+     * @return resultado propio o compartido.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T compartir(String grupo, String clave, Supplier<T> calculo) {
+        Contadores contador = contadores.computeIfAbsent(grupo, g -> new Contadores());
+        String id = grupo + '\u0000' + clave;
+        CompletableFuture<Object> propio = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enCurso.putIfAbsent(id, propio);
+        if (existente != null) {
+            contador.coalescidas.increment();
+            return (T) esperar(existente);
+        }
+        contador.ejecutadas.increment();
+        try {
+            T resultado = calculo.get();
+            propio.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(id, propio);
+        }
+    }
+
+    /**
+     * Expone por grupo cuántas peticiones calcularon, cuántas se unieron a un cálculo en curso y la
+     * proporción de coalescidas, además de los cálculos en curso.
+     *
+     * @return mapa con los contadores.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> grupos = new TreeMap<>();
+        contadores.forEach((grupo, contador) -> {
+            long ejecutadas = contador.ejecutadas.sum();
+            long coalescidas = contador.coalescidas.sum();
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("executed", ejecutadas);
+            detalle.put("coalesced", coalescidas);
+            detalle.put("coalescedRatio", ejecutadas + coalescidas == 0 ? 0.0 : (double) coalescidas / (ejecutadas + coalescidas));
+            grupos.put(grupo, detalle);
+        });
+        stats.put("inFlight", enCurso.size());
+        stats.put("groups", grupos);
+        return stats;
+    }
+
+    private Object esperar(CompletableFuture<Object> calculo) {
+        try {
+            return calculo.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.gherkin.TagExpression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de tags de un proyecto en mapas de bits. Cada caso recibe un id entero denso (los ids de casos
+ * eliminados se reutilizan) y cada tag un {@link BitSet} con los ids de los casos que lo usan, de modo que
+ * una expresión de tags se resuelve con operaciones AND/OR/ANDNOT sobre palabras de 64 bits sin leer archivos.
+ * Los métodos están sincronizados; las escrituras son por caso y las consultas copian los mapas que combinan.
+ */
+final class TagBitmapIndex {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> rutas = new ArrayList<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private final Map<String, BitSet> porTag = new HashMap<>();
+    private final Map<Integer, Collection<String>> tagsPorId = new HashMap<>();
+    private final BitSet presentes = new BitSet();
+
+    /**
+     * Registra o reemplaza los tags de un caso.
+     *
+     * @param ruta ruta relativa del caso.
+     * @param tags todos los tags del archivo.
+     */
+    synchronized void asignar(String ruta, Collection<String> tags) {
+        Integer id = ids.get(ruta);
+        if (id == null) {
+            id = libres.isEmpty() ? rutas.size() : libres.pop();
+            if (id == rutas.size()) {
+                rutas.add(ruta);
+            } else {
+                rutas.set(id, ruta);
+            }
+            ids.put(ruta, id);
+        } else {
+            limpiarTags(id);
+        }
+        for (String tag : tags) {
+            porTag.computeIfAbsent(tag, t -> new BitSet()).set(id);
+        }
+        tagsPorId.put(id, tags);
+        presentes.set(id);
+    }
+
+    /**
+     * Quita un caso del índice y libera su id.
+     *
+     * @param ruta ruta relativa del caso.
+     */
+    synchronized void quitar(String ruta) {
+        Integer id = ids.remove(ruta);
+        if (id == null) {
+            return;
+        }
+        limpiarTags(id);
+        tagsPorId.remove(id);
+        presentes.clear(id);
+        rutas.set(id, null);
+        libres.push(id);
+    }
+
+    /**
+     * Evalúa una expresión de tags sobre los casos registrados.
+     *
+     * @param expresion expresión a evaluar.
+     * @return rutas de los casos que la cumplen, sin orden definido.
+     */
+    synchronized List<String> seleccionar(TagExpression expresion) {
+        BitSet resultado = expresion.reducir(
+                tag -> {
+                    BitSet bits = porTag.get(tag);
+                    return bits == null ? new BitSet() : (BitSet) bits.clone();
+                },
+                (a, b) -> {
+                    a.and(b);
+                    return a;
+                },
+                (a, b) -> {
+                    a.or(b);
+                    return a;
+                },
+                a -> {
+                    BitSet complemento = (BitSet) presentes.clone();
+                    complemento.andNot(a);
+                    return complemento;
+                });
+        resultado.and(presentes);
+        List<String> seleccion = new ArrayList<>(resultado.cardinality());
+        for (int id = resultado.nextSetBit(0); id >= 0; id = resultado.nextSetBit(id + 1)) {
+            seleccion.add(rutas.get(id));
+        }
+        return seleccion;
+    }
+
+    private void limpiarTags(int id) {
+        Collection<String> anteriores = tagsPorId.get(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String tag : anteriores) {
+            BitSet bits = porTag.get(tag);
+            if (bits != null) {
+                bits.clear(id);
+                if (bits.isEmpty()) {
+                    porTag.remove(tag);
+                }
+            }
+        }
+    }
+}
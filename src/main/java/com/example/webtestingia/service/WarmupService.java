@@ -0,0 +1,217 @@
+package com.example.webtestingia.service;
+
+import com.example.webtestingia.model.FieldSelection;
+import com.example.webtestingia.model.WarmupStatus;
+import com.example.webtestingia.model.exception.FileAccessException;
+import com.example.webtestingia.quality.QualityAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Precalentamiento de arranque: al quedar lista la aplicación carga en segundo plano las reglas de calidad y,
+ * en paralelo por proyecto, el project.json, el índice de casos con su calidad y los locators; al final construye
+ * el índice de búsqueda. Mientras tanto la instancia se informa como no lista, para que el balanceador no le
+ * envíe tráfico hasta que las primeras peticiones dejen de pagar las lecturas en frío. Una tarea que falla se
+ * registra y no impide quedar lista: esa parte se cargará en la primera petición que la use.
+ */
+@Service
+public class WarmupService {
+
+    /**
+     * Estados del precalentamiento.
+     */
+    public enum Estado {
+        PENDIENTE,
+        EN_CURSO,
+        COMPLETADO,
+        DESACTIVADO
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmupService.class);
+    private static final int MAX_ERRORES = 20;
+
+    private final Path featuresRoot = Paths.get("src/test/resources/features");
+    private final ProjectDiscoveryService discoveryService;
+    private final CaseFileService caseFileService;
+    private final LocatorService locatorService;
+    private final QualityAnalyzer qualityAnalyzer;
+    private final CaseSearchService caseSearchService;
+    private final ApplicationAvailability availability;
+    private final boolean habilitado;
+    private final boolean incluirCalidad;
+    private final int concurrencia;
+    private final AtomicInteger tareas = new AtomicInteger();
+    private final AtomicInteger completadas = new AtomicInteger();
+    private final AtomicInteger fallidas = new AtomicInteger();
+    private final Queue<String> errores = new ConcurrentLinkedQueue<>();
+    private volatile Estado estado = Estado.PENDIENTE;
+    private volatile int proyectos;
+    private volatile long inicio;
+    private volatile long fin;
+
+    /**
+     * Constructor con dependencias.
+     *
+     * @param discoveryService  metadata de proyectos.
+     * @param caseFileService   índices de casos y agregados de calidad.
+     * @param locatorService    locators YAML por proyecto.
+     * @param qualityAnalyzer   reglas de calidad.
+     * @param caseSearchService índice de búsqueda global.
+     * @param availability      estado de disponibilidad de Spring Boot, que pasa a no aceptar tráfico al apagar.
+     * @param habilitado        si es false la instancia queda lista sin precalentar.
+     * @param incluirCalidad    si se analiza la calidad de todos los casos, lo que exige leerlos completos.
+     * @param concurrencia      tareas de precalentamiento simultáneas.
+     */
+    public WarmupService(ProjectDiscoveryService discoveryService,
+                         CaseFileService caseFileService,
+                         LocatorService locatorService,
+                         QualityAnalyzer qualityAnalyzer,
+                         CaseSearchService caseSearchService,
+                         ApplicationAvailability availability,
+                         @Value("${arranque.precalentar.habilitado:true}") boolean habilitado,
+                         @Value("${arranque.precalentar.calidad:true}") boolean incluirCalidad,
+                         @Value("${arranque.precalentar.concurrencia:4}") int concurrencia) {
+        this.discoveryService = discoveryService;
+        this.caseFileService = caseFileService;
+        this.locatorService = locatorService;
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.caseSearchService = caseSearchService;
+        this.availability = availability;
+        this.habilitado = habilitado;
+        this.incluirCalidad = incluirCalidad;
+        this.concurrencia = Math.max(1, concurrencia);
+    }
+
+    /**
+     * Inicia el precalentamiento en un hilo propio para no demorar el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (!habilitado) {
+            estado = Estado.DESACTIVADO;
+            LOGGER.info("Precalentamiento desactivado");
+            return;
+        }
+        Thread hilo = new Thread(this::precalentar, "warmup");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Indica si la instancia puede recibir tráfico: el precalentamiento terminó (o está desactivado) y Spring
+     * Boot no marcó la aplicación como fuera de servicio.
+     *
+     * @return true si está lista.
+     */
+    public boolean listo() {
+        return (estado == Estado.COMPLETADO || estado == Estado.DESACTIVADO)
+                && availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
+    /**
+     * Progreso actual del precalentamiento.
+     *
+     * @return estado, tareas y errores.
+     */
+    public WarmupStatus estado() {
+        long duracion = inicio == 0 ? 0 : (fin == 0 ? System.currentTimeMillis() : fin) - inicio;
+        return new WarmupStatus(estado.name(), listo(), proyectos, tareas.get(), completadas.get(), fallidas.get(),
+                List.copyOf(errores), duracion);
+    }
+
+    /**
+     * Ejecuta todas las tareas y espera a que terminen.
+     */
+    void precalentar() {
+        inicio = System.currentTimeMillis();
+        estado = Estado.EN_CURSO;
+        AtomicInteger hilos = new AtomicInteger();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(concurrencia, tarea -> {
+            Thread hilo = new Thread(tarea, "warmup-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            List<String> nombres = listarProyectos();
+            proyectos = nombres.size();
+            // Reglas de calidad, tres tareas por proyecto e índice de búsqueda.
+            tareas.set(2 + 3 * nombres.size());
+            List<CompletableFuture<Void>> pendientes = new ArrayList<>();
+            pendientes.add(ejecutar(ejecutor, "*", "reglas de calidad", qualityAnalyzer::precargarReglas));
+            for (String proyecto : nombres) {
+                pendientes.add(ejecutar(ejecutor, proyecto, "metadata",
+                        () -> discoveryService.obtenerProyecto(proyecto, FieldSelection.de(Set.of("name")))));
+                pendientes.add(ejecutar(ejecutor, proyecto, "casos", () -> {
+                    caseFileService.observarCambios(proyecto);
+                    if (incluirCalidad) {
+                        caseFileService.calidadProyecto(proyecto);
+                    }
+                }));
+                pendientes.add(ejecutar(ejecutor, proyecto, "locators", () -> locatorService.obtenerLocators(proyecto)));
+            }
+            CompletableFuture.allOf(pendientes.toArray(CompletableFuture[]::new)).join();
+            // El índice de búsqueda enumera los casos con los índices ya construidos.
+            ejecutar(ejecutor, "*", "índice de búsqueda", caseSearchService::precargar).join();
+        } catch (RuntimeException e) {
+            registrarError("*", "listado de proyectos", e);
+        } finally {
+            ejecutor.shutdown();
+            fin = System.currentTimeMillis();
+            estado = Estado.COMPLETADO;
+        }
+        LOGGER.info("Precalentamiento terminado en {} ms: {} proyectos, {} tareas, {} con error",
+                fin - inicio, proyectos, tareas.get(), fallidas.get());
+    }
+
+    private CompletableFuture<Void> ejecutar(ExecutorService ejecutor, String proyecto, String nombre, Runnable tarea) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                registrarError(proyecto, nombre, e);
+            } finally {
+                completadas.incrementAndGet();
+            }
+        }, ejecutor);
+    }
+
+    private void registrarError(String proyecto, String tarea, RuntimeException e) {
+        fallidas.incrementAndGet();
+        LOGGER.warn("Falló el precalentamiento de {} en {}", tarea, proyecto, e);
+        if (errores.size() < MAX_ERRORES) {
+            errores.add(proyecto + " (" + tarea + "): " + e.getMessage());
+        }
+    }
+
+    private List<String> listarProyectos() {
+        if (!Files.isDirectory(featuresRoot)) {
+            return List.of();
+        }
+        try (Stream<Path> rutas = Files.list(featuresRoot)) {
+            return rutas.filter(Files::isDirectory).map(path -> path.getFileName().toString()).sorted().toList();
+        } catch (IOException e) {
+            throw new FileAccessException("Error al listar proyectos para el precalentamiento", e);
+        }
+    }
+}